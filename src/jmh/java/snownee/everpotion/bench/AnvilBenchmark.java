@@ -0,0 +1,102 @@
+package snownee.everpotion.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.potion.Potion;
+import net.minecraft.potion.PotionUtils;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Registry;
+import net.minecraftforge.common.crafting.NBTIngredient;
+import snownee.everpotion.EverPotion;
+import snownee.everpotion.crafting.AnvilContext;
+import snownee.everpotion.crafting.AnvilRecipeIndex;
+import snownee.everpotion.crafting.EverAnvilRecipe;
+
+/**
+ * Anvil recipe matching against a synthetic recipe set of the given size,
+ * testing every recipe in order as RecipeManager does versus the index.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnvilBenchmark {
+
+    private static final Item[] LEFTS = { Items.POTION, Items.SPLASH_POTION, Items.LINGERING_POTION };
+    private static final Item[] RIGHTS = { Items.ENDER_PEARL, Items.GLOWSTONE_DUST, Items.REDSTONE, Items.GUNPOWDER, Items.DRAGON_BREATH, Items.BLAZE_POWDER };
+
+    @Param({ "22", "500", "2000" })
+    public int recipes;
+
+    private List<EverAnvilRecipe> list;
+    private AnvilRecipeIndex index;
+    private AnvilContext hit;
+    private AnvilContext miss;
+
+    @Setup
+    public void setup() {
+        Headless.bootstrap();
+        List<Potion> potions = Lists.newArrayList(Registry.POTION);
+        list = Lists.newArrayListWithCapacity(recipes);
+        for (int i = 0; i < recipes; i++) {
+            ItemStack left = PotionUtils.addPotionToItemStack(new ItemStack(LEFTS[i % LEFTS.length]), potions.get(i % potions.size()));
+            Ingredient right = Ingredient.fromItems(RIGHTS[i / LEFTS.length % RIGHTS.length]);
+            ResourceLocation id = new ResourceLocation(EverPotion.MODID, "bench_" + i);
+            list.add(new EverAnvilRecipe(id, new NBTIngredient(left) {}, right, 1, 1, new ItemStack(Items.DIAMOND)));
+        }
+        index = new AnvilRecipeIndex(list);
+        EverAnvilRecipe last = list.get(list.size() - 1);
+        hit = new AnvilContext(last.getLeft().getMatchingStacks()[0], last.getRight().getMatchingStacks()[0], "");
+        miss = new AnvilContext(new ItemStack(Items.POTION), new ItemStack(Items.STICK), "");
+    }
+
+    private EverAnvilRecipe linear(AnvilContext ctx) {
+        for (EverAnvilRecipe recipe : list) {
+            if (recipe.matches(ctx, null)) {
+                return recipe;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public EverAnvilRecipe linearHit() {
+        return linear(hit);
+    }
+
+    @Benchmark
+    public EverAnvilRecipe linearMiss() {
+        return linear(miss);
+    }
+
+    @Benchmark
+    public EverAnvilRecipe indexHit() {
+        return index.find(hit);
+    }
+
+    @Benchmark
+    public EverAnvilRecipe indexMiss() {
+        return index.find(miss);
+    }
+}
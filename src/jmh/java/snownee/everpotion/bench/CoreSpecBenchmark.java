@@ -0,0 +1,75 @@
+package snownee.everpotion.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.potion.EffectInstance;
+import net.minecraft.potion.Effects;
+import snownee.everpotion.PotionType;
+import snownee.everpotion.item.CoreItem;
+import snownee.everpotion.item.CoreSpec;
+import snownee.kiwi.util.NBTHelper;
+
+/**
+ * Cost of resolving everything the handler reads from a core stack, by
+ * parsing the tag each time as before versus through {@link CoreSpec}. Run
+ * with {@code -Pjmh="-prof gc CoreSpec"} to compare allocations per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoreSpecBenchmark {
+
+    private ItemStack stack;
+
+    @Setup
+    public void setup() {
+        Headless.bootstrap();
+        // the item does not matter, the spec only looks at the tag
+        stack = new ItemStack(Items.POTION);
+        stack.getOrCreateTag().putByte("Type", (byte) PotionType.SPLASH.ordinal());
+        stack.getTag().put("Effect", new EffectInstance(Effects.SPEED, 3600, 1).write(new CompoundNBT()));
+        stack.getTag().putFloat("Charge", 1.5f);
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) {
+        CompoundNBT tag = stack.getChildTag("Effect");
+        EffectInstance effect = tag == null ? null : EffectInstance.read(tag);
+        bh.consume(effect == null ? null : effect.getPotion());
+        bh.consume(PotionType.valueOf(NBTHelper.of(stack).getByte("Type")));
+        bh.consume(NBTHelper.of(stack).getFloat("Charge", 1));
+    }
+
+    @Benchmark
+    public void interned(Blackhole bh) {
+        CoreSpec spec = CoreSpec.of(stack);
+        bh.consume(spec.potion);
+        bh.consume(spec.type);
+        bh.consume(spec.charge);
+    }
+
+    @Benchmark
+    public void coreItem(Blackhole bh) {
+        bh.consume(CoreItem.getEffectInstance(stack));
+        bh.consume(CoreItem.getPotionType(stack));
+        bh.consume(CoreItem.getChargeModifier(stack));
+    }
+}
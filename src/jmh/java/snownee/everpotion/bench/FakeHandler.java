@@ -0,0 +1,56 @@
+package snownee.everpotion.bench;
+
+import snownee.everpotion.handler.EverHandler;
+import snownee.everpotion.handler.TimerWheel;
+import snownee.everpotion.item.CoreSpec;
+
+/**
+ * Server side handler without a player. The tick of the given wheel is used
+ * as game time, finished drinks and sync requests are only counted.
+ */
+public class FakeHandler extends EverHandler {
+
+    public final TimerWheel wheel;
+    public int drinks;
+    public int syncRequests;
+
+    public FakeHandler(TimerWheel wheel) {
+        super(null);
+        this.wheel = wheel;
+    }
+
+    @Override
+    protected boolean isAttached() {
+        return true;
+    }
+
+    @Override
+    protected boolean isRemote() {
+        return false;
+    }
+
+    @Override
+    protected boolean isRemoved() {
+        return false;
+    }
+
+    @Override
+    protected long now() {
+        return wheel.getTick();
+    }
+
+    @Override
+    protected TimerWheel getScheduler() {
+        return wheel;
+    }
+
+    @Override
+    protected void applyDrink(CoreSpec spec) {
+        ++drinks;
+    }
+
+    @Override
+    protected void requestSync() {
+        ++syncRequests;
+    }
+}
@@ -0,0 +1,107 @@
+package snownee.everpotion.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.potion.Effect;
+import net.minecraft.potion.EffectInstance;
+import net.minecraft.potion.Effects;
+import snownee.everpotion.CoreModule;
+import snownee.everpotion.PotionType;
+import snownee.everpotion.handler.TimerWheel;
+
+/**
+ * Per tick cost of one handler in each state, plus the container check and
+ * the NBT round-trip. The state is restored whenever it runs out, which is
+ * included in the measured cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerBenchmark {
+
+    private static final Effect[] EFFECTS = { Effects.SPEED, Effects.STRENGTH, Effects.REGENERATION, Effects.NIGHT_VISION };
+
+    @Param({ "idle", "charging", "drinking" })
+    public String state;
+
+    private TimerWheel wheel;
+    private FakeHandler handler;
+    private FakeHandler copy;
+    private CompoundNBT charging;
+    private CompoundNBT tag;
+    private ItemStack candidate;
+
+    public static ItemStack core(int i) {
+        return CoreModule.CORE.make(new EffectInstance(EFFECTS[i % EFFECTS.length], 600), PotionType.values()[i % 3], 1);
+    }
+
+    @Setup
+    public void setup() {
+        Headless.bootstrap();
+        wheel = new TimerWheel(512);
+        handler = new FakeHandler(wheel);
+        handler.setSlots(4);
+        for (int i = 0; i < 3; i++) {
+            handler.setStackInSlot(i, core(i));
+        }
+        charging = handler.serializeNBT();
+        restore();
+        tag = handler.serializeNBT();
+        copy = new FakeHandler(wheel);
+        candidate = core(3);
+    }
+
+    private void restore() {
+        if ("charging".equals(state)) {
+            handler.deserializeNBT(charging);
+            return;
+        }
+        handler.refill();
+        if ("drinking".equals(state)) {
+            handler.startDrinking(0);
+        }
+    }
+
+    @Benchmark
+    public float tick() {
+        wheel.advance();
+        handler.update();
+        if ("charging".equals(state) ? handler.chargeIndex == -1 : "drinking".equals(state) && handler.drinkIndex == -1) {
+            restore();
+        }
+        return handler.getProgress(0);
+    }
+
+    @Benchmark
+    public boolean isItemValid() {
+        return handler.isItemValid(3, candidate);
+    }
+
+    @Benchmark
+    public CompoundNBT serializeNBT() {
+        return handler.serializeNBT();
+    }
+
+    @Benchmark
+    public FakeHandler deserializeNBT() {
+        copy.deserializeNBT(tag);
+        return copy;
+    }
+}
@@ -0,0 +1,35 @@
+package snownee.everpotion.bench;
+
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Bootstrap;
+import net.minecraftforge.registries.ForgeRegistries;
+import net.minecraftforge.registries.GameData;
+import snownee.everpotion.CoreModule;
+import snownee.everpotion.EverPotion;
+
+/**
+ * Sets up just enough of the game to run benchmarks without a client or a
+ * server: the vanilla registries, plus our items so that stacks survive a
+ * round-trip through NBT and packets.
+ */
+public final class Headless {
+
+    private static boolean bootstrapped;
+
+    private Headless() {}
+
+    public static synchronized void bootstrap() {
+        if (bootstrapped) {
+            return;
+        }
+        bootstrapped = true;
+        Bootstrap.register();
+        GameData.unfreezeData();
+        if (CoreModule.CORE.getRegistryName() == null) {
+            CoreModule.CORE.setRegistryName(new ResourceLocation(EverPotion.MODID, "core"));
+        }
+        if (!ForgeRegistries.ITEMS.containsValue(CoreModule.CORE)) {
+            ForgeRegistries.ITEMS.register(CoreModule.CORE);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package snownee.everpotion.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import snownee.everpotion.EverCommonConfig;
+import snownee.everpotion.handler.TimerWheel;
+
+/**
+ * Per server tick cost of polling every handler versus advancing the timer
+ * wheel, on real handlers. A fixed number of active handlers drink over and
+ * over, the growing idle crowd charges so slowly that its events lie beyond
+ * the run, so those timers stay hashed into the wheel and every bucket walk
+ * passes over them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+
+    private static final int ACTIVE = 50;
+
+    @Param({ "100", "1000", "10000" })
+    public int idle;
+
+    private int refillTime;
+    private Clock clock;
+    private TimerWheel wheel;
+    private FakeHandler[] polled;
+    private FakeHandler[] scheduled;
+
+    @Setup
+    public void setup() {
+        Headless.bootstrap();
+        refillTime = EverCommonConfig.refillTime;
+        EverCommonConfig.refillTime = 1_000_000_000;
+        clock = new Clock();
+        wheel = new TimerWheel(512);
+        polled = populate(clock);
+        scheduled = populate(wheel);
+    }
+
+    private FakeHandler[] populate(TimerWheel wheel) {
+        FakeHandler[] handlers = new FakeHandler[idle + ACTIVE];
+        for (int i = 0; i < handlers.length; i++) {
+            FakeHandler handler = new FakeHandler(wheel);
+            handler.setSlots(1);
+            handler.setStackInSlot(0, HandlerBenchmark.core(i));
+            if (i < ACTIVE) {
+                // spread the drinks over the ticks
+                wheel.advance();
+                handler.startDrinking(0);
+            }
+            handlers[i] = handler;
+        }
+        return handlers;
+    }
+
+    @TearDown
+    public void tearDown() {
+        EverCommonConfig.refillTime = refillTime;
+    }
+
+    @Benchmark
+    public int polling() {
+        clock.advance();
+        for (FakeHandler handler : polled) {
+            handler.update();
+        }
+        return restart(polled);
+    }
+
+    @Benchmark
+    public int wheel() {
+        wheel.advance();
+        return restart(scheduled);
+    }
+
+    private static int restart(FakeHandler[] handlers) {
+        int drinks = 0;
+        for (int i = 0; i < ACTIVE; i++) {
+            FakeHandler handler = handlers[i];
+            if (handler.drinkIndex == -1) {
+                handler.startDrinking(0);
+            }
+            drinks += handler.drinks;
+        }
+        return drinks;
+    }
+
+    /**
+     * Keeps the game time for the polled handlers without holding any timers.
+     */
+    private static final class Clock extends TimerWheel {
+
+        private Clock() {
+            super(1);
+        }
+
+        @Override
+        public void schedule(Timer timer, int delay) {}
+
+        @Override
+        public void cancel(Timer timer) {}
+    }
+}
@@ -0,0 +1,181 @@
+package snownee.everpotion.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.PacketBuffer;
+import snownee.everpotion.EverCommonConfig;
+import snownee.everpotion.handler.TimerWheel;
+import snownee.everpotion.network.SChecksumPacket;
+import snownee.everpotion.network.SSyncPotionsPacket;
+
+/**
+ * Headless load test of the handler and sync design. Drives N fake players
+ * with a scripted mix of damage, drinking, container edits and refills, and
+ * sends syncs the way the server does: at most one packet per player at the
+ * end of each tick, plus the periodic checksums.
+ * <p>
+ * Run with {@code gradlew soak -Psoak="players ticks seed"}.
+ */
+public final class SoakSimulator {
+
+    // chances per player and tick
+    private static final float DAMAGE = 0.05f;
+    private static final float DRINK = 0.002f;
+    private static final float EDIT = 0.0005f;
+    private static final float REFILL = 0.0001f;
+
+    private final Random rand;
+    private final TimerWheel wheel = new TimerWheel(512);
+    private final FakeHandler[] handlers;
+    private final boolean[] pending;
+    private final List<FakeHandler> queue = Lists.newArrayList();
+    private final SSyncPotionsPacket.Handler syncCodec = new SSyncPotionsPacket.Handler();
+    private final SChecksumPacket.Handler checksumCodec = new SChecksumPacket.Handler();
+    private final PacketBuffer buf = new PacketBuffer(Unpooled.buffer(256));
+
+    private long syncPackets;
+    private long syncBytes;
+    private long checksumPackets;
+    private long checksumBytes;
+
+    private SoakSimulator(int players, long seed) {
+        rand = new Random(seed);
+        handlers = new FakeHandler[players];
+        pending = new boolean[players];
+        for (int i = 0; i < players; i++) {
+            FakeHandler handler = new FakeHandler(wheel);
+            handler.setSlots(1 + rand.nextInt(4));
+            for (int j = 0; j < handler.getSlots(); j++) {
+                handler.setStackInSlot(j, randomCore());
+            }
+            handlers[i] = handler;
+        }
+    }
+
+    private ItemStack randomCore() {
+        return HandlerBenchmark.core(rand.nextInt(12));
+    }
+
+    private void tick() {
+        wheel.advance();
+        for (int i = 0; i < handlers.length; i++) {
+            FakeHandler handler = handlers[i];
+            int requests = handler.syncRequests;
+            float f = rand.nextFloat();
+            if (f < DAMAGE) {
+                handler.accelerate(.05f * (1 + rand.nextInt(10)) * EverCommonConfig.damageAcceleration);
+                request(i);
+            } else if ((f -= DAMAGE) < DRINK) {
+                int slot = rand.nextInt(4);
+                if (handler.canDrink(slot)) {
+                    handler.startDrinking(slot);
+                }
+                request(i);
+            } else if ((f -= DRINK) < EDIT) {
+                int slot = rand.nextInt(handler.getSlots());
+                handler.setStackInSlot(slot, rand.nextBoolean() ? randomCore() : ItemStack.EMPTY);
+                request(i);
+            } else if ((f -= EDIT) < REFILL) {
+                handler.refill();
+            }
+            if (handler.syncRequests != requests) {
+                request(i);
+            }
+        }
+        flush();
+        if (EverCommonConfig.checksumInterval > 0 && wheel.getTick() % EverCommonConfig.checksumInterval == 0) {
+            for (FakeHandler handler : handlers) {
+                handler.update();
+                if (handler.chargeIndex != -1 || handler.drinkIndex != -1) {
+                    buf.clear();
+                    checksumCodec.encode(new SChecksumPacket(handler, wheel.getTick()), buf);
+                    ++checksumPackets;
+                    checksumBytes += buf.readableBytes();
+                }
+            }
+        }
+    }
+
+    private void request(int i) {
+        if (!pending[i]) {
+            pending[i] = true;
+            queue.add(handlers[i]);
+        }
+    }
+
+    private void flush() {
+        for (int i = 0; i < queue.size(); i++) {
+            FakeHandler handler = queue.get(i);
+            if (handler.isDirty()) {
+                buf.clear();
+                SSyncPotionsPacket packet = new SSyncPotionsPacket(null, handler, false, false);
+                packet.snap(handler);
+                syncCodec.encode(packet, buf);
+                ++syncPackets;
+                syncBytes += buf.readableBytes();
+            }
+        }
+        queue.clear();
+        Arrays.fill(pending, false);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1000D;
+    }
+
+    public static void main(String[] args) {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 12000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        Headless.bootstrap();
+        SoakSimulator sim = new SoakSimulator(players, seed);
+
+        // let the JIT settle before measuring
+        int warmup = Math.min(ticks, 1200);
+        for (int i = 0; i < warmup; i++) {
+            sim.tick();
+        }
+        sim.syncPackets = sim.syncBytes = sim.checksumPackets = sim.checksumBytes = 0;
+
+        long[] nanos = new long[ticks];
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            long t = System.nanoTime();
+            sim.tick();
+            nanos[i] = System.nanoTime() - t;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        allocated = allocated == -1 ? -1 : allocatedBytes() - allocated;
+        Arrays.sort(nanos);
+
+        int drinks = 0;
+        for (FakeHandler handler : sim.handlers) {
+            drinks += handler.drinks;
+        }
+        System.out.printf(Locale.ENGLISH, "players %d, ticks %d, seed %d%n", players, ticks, seed);
+        System.out.printf(Locale.ENGLISH, "tick us: p50 %.1f, p99 %.1f, max %.1f%n", percentile(nanos, .5), percentile(nanos, .99), nanos[ticks - 1] / 1000D);
+        System.out.printf(Locale.ENGLISH, "sync: %d packets, %d bytes, %.1f packets/tick%n", sim.syncPackets, sim.syncBytes, (double) sim.syncPackets / ticks);
+        System.out.printf(Locale.ENGLISH, "checksum: %d packets, %d bytes%n", sim.checksumPackets, sim.checksumBytes);
+        System.out.printf(Locale.ENGLISH, "drinks: %d, scheduled timers: %d%n", drinks, sim.wheel.size());
+        if (allocated != -1) {
+            System.out.printf(Locale.ENGLISH, "allocation: %.1f MB/s, %.0f bytes/tick%n", allocated / seconds / 1e6, (double) allocated / ticks);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package snownee.everpotion.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.Lists;
+
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.item.ArmorStandEntity;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.world.World;
+import snownee.everpotion.handler.SplashEngine;
+
+/**
+ * Target selection of one splash against the number of entities in the
+ * queried box: collecting the whole box and filtering afterwards, as before
+ * {@link SplashEngine}, versus the shipped {@link SplashEngine#collect}. Both
+ * run on entities without a world, and the world query is replaced by a scan
+ * of an array that calls the predicate the same way. Run with
+ * {@code -Pjmh="-prof gc Splash"} to compare allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplashBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int entities;
+
+    @Param({ "0", "16" })
+    public int maxTargets;
+
+    private LivingEntity[] crowd;
+    private LivingEntity owner;
+    private final SplashEngine engine = new SplashEngine() {
+
+        @Override
+        protected void query(World world, AxisAlignedBB box, Predicate<LivingEntity> filter) {
+            SplashBenchmark.this.query(box, filter);
+        }
+    };
+
+    @Setup
+    public void setup() {
+        Headless.bootstrap();
+        Random rand = new Random(42);
+        owner = entity(0.5, 64, 0.5);
+        crowd = new LivingEntity[entities + 1];
+        crowd[0] = owner;
+        for (int i = 1; i <= entities; i++) {
+            crowd[i] = entity(0.5 + rand.nextDouble() * 9 - 4.5, 64 + rand.nextDouble() * 5 - 2.5, 0.5 + rand.nextDouble() * 9 - 4.5);
+        }
+    }
+
+    private static LivingEntity entity(double x, double y, double z) {
+        LivingEntity entity = new ArmorStandEntity(EntityType.ARMOR_STAND, null);
+        entity.setPosition(x, y, z);
+        return entity;
+    }
+
+    /**
+     * Same contract as World.getEntitiesWithinAABB: tests every entity whose
+     * box intersects, and returns those the predicate accepted.
+     */
+    private List<LivingEntity> query(AxisAlignedBB box, Predicate<LivingEntity> predicate) {
+        List<LivingEntity> list = Lists.newArrayList();
+        for (LivingEntity entity : crowd) {
+            if (entity.getBoundingBox().intersects(box) && predicate.test(entity)) {
+                list.add(entity);
+            }
+        }
+        return list;
+    }
+
+    @Benchmark
+    public void collectThenFilter(Blackhole bh) {
+        AxisAlignedBB box = new AxisAlignedBB(owner.getPosition()).grow(4.0D, 2.0D, 4.0D);
+        List<LivingEntity> list = query(box, entity -> true);
+        bh.consume(owner);
+        int count = 1;
+        for (LivingEntity entity : list) {
+            if (entity != owner && owner.getDistanceSq(entity) < SplashEngine.RADIUS_SQ && (maxTargets == 0 || count < maxTargets)) {
+                bh.consume(entity);
+                ++count;
+            }
+        }
+    }
+
+    @Benchmark
+    public void engine(Blackhole bh) {
+        List<LivingEntity> targets = engine.collect(owner, maxTargets);
+        for (int i = 0; i < targets.size(); i++) {
+            bh.consume(targets.get(i));
+        }
+    }
+}
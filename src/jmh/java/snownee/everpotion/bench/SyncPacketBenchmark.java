@@ -0,0 +1,67 @@
+package snownee.everpotion.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketBuffer;
+import snownee.everpotion.handler.TimerWheel;
+import snownee.everpotion.network.SSyncPotionsPacket;
+
+/**
+ * Builds, encodes and decodes a full snapshot and a typical delta of a
+ * handler with three cores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyncPacketBenchmark {
+
+    private final SSyncPotionsPacket.Handler codec = new SSyncPotionsPacket.Handler();
+    private final PacketBuffer buf = new PacketBuffer(Unpooled.buffer(256));
+    private TimerWheel wheel;
+    private FakeHandler handler;
+
+    @Setup
+    public void setup() {
+        Headless.bootstrap();
+        wheel = new TimerWheel(512);
+        handler = new FakeHandler(wheel);
+        handler.setSlots(4);
+        for (int i = 0; i < 3; i++) {
+            handler.setStackInSlot(i, HandlerBenchmark.core(i));
+        }
+    }
+
+    private SSyncPotionsPacket roundTrip(SSyncPotionsPacket pkt) {
+        buf.clear();
+        codec.encode(pkt, buf);
+        return codec.decode(buf);
+    }
+
+    @Benchmark
+    public SSyncPotionsPacket full() {
+        return roundTrip(new SSyncPotionsPacket(null, handler, true, false));
+    }
+
+    @Benchmark
+    public SSyncPotionsPacket delta() {
+        wheel.advance();
+        // re-anchors the charge, the most common reason for a delta
+        handler.accelerate(0);
+        return roundTrip(new SSyncPotionsPacket(null, handler, false, false));
+    }
+}
@@ -1,7 +1,13 @@
 package snownee.everpotion;
 
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.ScreenManager;
 import net.minecraft.command.CommandSource;
 import net.minecraft.entity.Entity;
@@ -12,6 +18,9 @@ import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.inventory.container.ContainerType;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.INBT;
+import net.minecraft.resources.IReloadableResourceManager;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.Direction;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.api.distmarker.Dist;
@@ -19,9 +28,9 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.capabilities.CapabilityManager;
+import net.minecraftforge.common.util.FakePlayer;
 import net.minecraftforge.event.AttachCapabilitiesEvent;
 import net.minecraftforge.event.TickEvent;
-import net.minecraftforge.event.TickEvent.Phase;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
 import net.minecraftforge.event.entity.living.LivingDamageEvent;
 import net.minecraftforge.event.entity.living.LivingDeathEvent;
@@ -29,32 +38,40 @@ import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
-import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.client.registry.ClientRegistry;
 import net.minecraftforge.fml.config.ModConfig;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import net.minecraftforge.fml.loading.FMLEnvironment;
+import net.minecraftforge.fml.server.ServerLifecycleHooks;
+import net.minecraftforge.resource.ISelectiveResourceReloadListener;
 import snownee.everpotion.cap.EverCapabilities;
 import snownee.everpotion.cap.EverCapabilityProvider;
 import snownee.everpotion.client.ClientHandler;
+import snownee.everpotion.client.CorePresentation;
 import snownee.everpotion.client.gui.PlaceScreen;
 import snownee.everpotion.container.PlaceContainer;
+import snownee.everpotion.handler.CloudManager;
 import snownee.everpotion.handler.EverHandler;
+import snownee.everpotion.handler.TimerWheel;
 import snownee.everpotion.item.CoreItem;
 import snownee.everpotion.item.UnlockSlotItem;
+import snownee.everpotion.metrics.Metrics;
 import snownee.everpotion.network.CDrinkPacket;
 import snownee.everpotion.network.COpenContainerPacket;
-import snownee.everpotion.network.SCancelPacket;
+import snownee.everpotion.network.CRequestSyncPacket;
+import snownee.everpotion.network.PendingSyncQueue;
+import snownee.everpotion.network.SChecksumPacket;
+import snownee.everpotion.network.SCoreCatalogPacket;
 import snownee.everpotion.network.SSyncPotionsPacket;
+import snownee.everpotion.network.SyncQueue;
 import snownee.kiwi.AbstractModule;
 import snownee.kiwi.KiwiModule;
 import snownee.kiwi.network.NetworkChannel;
-import snownee.kiwi.schedule.Scheduler;
-import snownee.kiwi.schedule.impl.SimpleGlobalTask;
 
 @KiwiModule
 @KiwiModule.Subscriber
@@ -67,6 +84,18 @@ public class CoreModule extends AbstractModule {
 
     public static final ContainerType<PlaceContainer> MAIN = new ContainerType<>(PlaceContainer::new);
 
+    /**
+     * Server side scheduler that updates handlers only when something is due.
+     */
+    public static final TimerWheel SCHEDULER = new TimerWheel(512);
+
+    /**
+     * Server side handlers that are charging, drinking or accelerated.
+     */
+    public static final Set<EverHandler> ACTIVE_HANDLERS = new ReferenceLinkedOpenHashSet<>();
+
+    private static final List<EverHandler> CHECKSUM_TARGETS = Lists.newArrayList();
+
     public CoreModule() {
         IEventBus modEventBus = FMLJavaModLoadingContext.get().getModEventBus();
         ModLoadingContext.get().registerConfig(ModConfig.Type.COMMON, EverCommonConfig.spec);
@@ -82,7 +111,9 @@ public class CoreModule extends AbstractModule {
         NetworkChannel.register(CDrinkPacket.class, new CDrinkPacket.Handler());
         NetworkChannel.register(COpenContainerPacket.class, new COpenContainerPacket.Handler());
         NetworkChannel.register(SSyncPotionsPacket.class, new SSyncPotionsPacket.Handler());
-        NetworkChannel.register(SCancelPacket.class, new SCancelPacket.Handler());
+        NetworkChannel.register(CRequestSyncPacket.class, new CRequestSyncPacket.Handler());
+        NetworkChannel.register(SChecksumPacket.class, new SChecksumPacket.Handler());
+        NetworkChannel.register(SCoreCatalogPacket.class, new SCoreCatalogPacket.Handler());
     }
 
     @Override
@@ -108,6 +139,11 @@ public class CoreModule extends AbstractModule {
         ClientRegistry.registerKeyBinding(ClientHandler.kbUse);
         ScreenManager.registerFactory(MAIN, PlaceScreen::new);
         MinecraftForge.EVENT_BUS.register(ClientHandler.class);
+        // language changes reload resources as well
+        IResourceManager manager = Minecraft.getInstance().getResourceManager();
+        if (manager instanceof IReloadableResourceManager) {
+            ((IReloadableResourceManager) manager).addReloadListener((ISelectiveResourceReloadListener) (resourceManager, predicate) -> CorePresentation.clear());
+        }
     }
 
     @Override
@@ -116,11 +152,21 @@ public class CoreModule extends AbstractModule {
         event.getCommandDispatcher().register(builder);
     }
 
+    @SubscribeEvent
+    public void serverStopped(FMLServerStoppedEvent event) {
+        SCHEDULER.clear();
+        ACTIVE_HANDLERS.clear();
+        SyncQueue.clear();
+        PendingSyncQueue.clear();
+        CloudManager.clear();
+    }
+
     public static final ResourceLocation HANDLER_ID = new ResourceLocation(EverPotion.MODID, "handler");
 
     @SubscribeEvent
     public void attachCapability(AttachCapabilitiesEvent<Entity> event) {
-        if (event.getObject() instanceof PlayerEntity) {
+        // machines using fake players never drink
+        if (event.getObject() instanceof PlayerEntity && !(event.getObject() instanceof FakePlayer)) {
             event.addCapability(HANDLER_ID, new EverCapabilityProvider(new EverHandler((PlayerEntity) event.getObject())));
         }
     }
@@ -132,26 +178,62 @@ public class CoreModule extends AbstractModule {
             return;
         }
         if (entity instanceof ServerPlayerEntity) {
-            Scheduler.add(new SimpleGlobalTask(LogicalSide.SERVER, Phase.END, t -> {
-                if (t >= 5) {
-                    sync((ServerPlayerEntity) entity);
-                    return true;
-                }
-                return false;
-            }));
+            // give the client a few ticks to set up the new player entity
+            PendingSyncQueue.add(entity.getUniqueID(), 5, SyncQueue.FULL);
         }
     }
 
     public static void sync(ServerPlayerEntity player) {
-        new SSyncPotionsPacket(player).send();
+        sync(player, false);
+    }
+
+    /**
+     * Queues a sync that is sent when the current tick ends.
+     *
+     * @param full send a full snapshot instead of the changes since the last sync
+     */
+    public static void sync(ServerPlayerEntity player, boolean full) {
+        SyncQueue.add(player, full ? SyncQueue.FULL : SyncQueue.SYNC);
     }
 
     @SubscribeEvent
-    public void tickPlayer(TickEvent.PlayerTickEvent event) {
-        if (event.phase == TickEvent.Phase.START) {
-            return;
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            long start = System.nanoTime();
+            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+            SCHEDULER.advance();
+            if (EverCommonConfig.checksumInterval > 0 && SCHEDULER.getTick() % EverCommonConfig.checksumInterval == 0) {
+                sendChecksums();
+            }
+            if (server != null) {
+                PendingSyncQueue.process(server);
+            }
+            SyncQueue.flush();
+            Metrics.TICK.record(System.nanoTime() - start);
+            if (server != null && EverCommonConfig.metricsDumpInterval > 0 && SCHEDULER.getTick() % EverCommonConfig.metricsDumpInterval == 0) {
+                Metrics.dump(server);
+            }
         }
-        event.player.getCapability(EverCapabilities.HANDLER).ifPresent(EverHandler::tick);
+    }
+
+    /**
+     * Only handlers whose state changes over time can drift from the client
+     * prediction.
+     */
+    private static void sendChecksums() {
+        // updating may take a handler out of the set
+        CHECKSUM_TARGETS.addAll(ACTIVE_HANDLERS);
+        for (EverHandler handler : CHECKSUM_TARGETS) {
+            handler.update();
+            if (handler.chargeIndex == -1 && handler.drinkIndex == -1) {
+                continue;
+            }
+            PlayerEntity owner = handler.getOwner();
+            if (owner instanceof ServerPlayerEntity && !((ServerPlayerEntity) owner).hasDisconnected()) {
+                new SChecksumPacket(handler, owner.world.getGameTime()).send((ServerPlayerEntity) owner);
+            }
+        }
+        CHECKSUM_TARGETS.clear();
     }
 
     @SubscribeEvent
@@ -163,8 +245,7 @@ public class CoreModule extends AbstractModule {
         living.getCapability(EverCapabilities.HANDLER).ifPresent(handler -> {
             handler.stopDrinking();
             if (living instanceof ServerPlayerEntity) {
-                new SCancelPacket().send((ServerPlayerEntity) living);
-
+                SyncQueue.add((ServerPlayerEntity) living, SyncQueue.CANCEL);
             }
         });
 
@@ -172,19 +253,23 @@ public class CoreModule extends AbstractModule {
         if (source instanceof ServerPlayerEntity && EverCommonConfig.damageAcceleration > 0) {
             source.getCapability(EverCapabilities.HANDLER).ifPresent(handler -> {
                 handler.accelerate(.05f * event.getAmount() * EverCommonConfig.damageAcceleration);
-                if (source.world.rand.nextBoolean()) {
-                    sync((ServerPlayerEntity) source);
-                }
+                sync((ServerPlayerEntity) source);
             });
         }
     }
 
+    @SubscribeEvent
+    public void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        event.getPlayer().getCapability(EverCapabilities.HANDLER).ifPresent(EverHandler::invalidate);
+    }
+
     @SubscribeEvent
     public void onPlayerClone(PlayerEvent.Clone event) {
         EverHandler newHandler = event.getPlayer().getCapability(EverCapabilities.HANDLER).orElse(null);
         EverHandler oldHandler = event.getOriginal().getCapability(EverCapabilities.HANDLER).orElse(null);
         if (newHandler != null && oldHandler != null) {
             newHandler.copyFrom(oldHandler);
+            oldHandler.invalidate();
         }
     }
 
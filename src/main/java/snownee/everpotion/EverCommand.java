@@ -2,17 +2,35 @@ package snownee.everpotion;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 
+import com.google.common.collect.Lists;
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.DoubleArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.ArgumentBuilder;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
 
 import net.minecraft.command.CommandSource;
 import net.minecraft.command.Commands;
+import net.minecraft.command.arguments.DimensionArgument;
 import net.minecraft.command.arguments.EntityArgument;
+import net.minecraft.command.arguments.Vec3Argument;
 import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.text.StringTextComponent;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.dimension.DimensionType;
+import net.minecraftforge.items.ItemHandlerHelper;
 import snownee.everpotion.cap.EverCapabilities;
 import snownee.everpotion.handler.EverHandler;
+import snownee.everpotion.metrics.Histogram;
+import snownee.everpotion.metrics.Metrics;
+import snownee.everpotion.network.PendingSyncQueue;
+import snownee.everpotion.network.SyncQueue;
 
 public class EverCommand {
 
@@ -21,29 +39,163 @@ public class EverCommand {
 
         /* off */
         builder
-        .then(Commands
+        .then(targets(Commands
                 .literal("refill")
+                .requires(ctx -> ctx.hasPermissionLevel(2)),
+                EverCommand::refill)
+        )
+        .then(targets(Commands
+                .literal("reset")
+                .requires(ctx -> ctx.hasPermissionLevel(2)),
+                EverCommand::reset)
+        )
+        .then(Commands
+                .literal("setslots")
                 .requires(ctx -> ctx.hasPermissionLevel(2))
-                .executes(ctx-> refill(ctx, Collections.singleton(ctx.getSource().asPlayer())))
-                .then(Commands
-                        .argument("target", EntityArgument.players())
-                        .executes(ctx-> refill(ctx, EntityArgument.getPlayers(ctx, "target")))
+                .then(targets(Commands
+                        .argument("slots", IntegerArgumentType.integer(0, EverHandler.MAX_SLOTS)),
+                        EverCommand::setSlots)
                 )
+        )
+        .then(Commands
+                .literal("stats")
+                .requires(ctx -> ctx.hasPermissionLevel(2))
+                .executes(EverCommand::stats)
         );
         /* on */
 
         return builder;
     }
 
-    private static int refill(CommandContext<CommandSource> source, Collection<ServerPlayerEntity> players) {
+    /**
+     * Appends the ways to pick the players of a bulk operation: the source
+     * itself, a selector, a whole dimension or a radius around a position.
+     */
+    private static <T extends ArgumentBuilder<CommandSource, T>> T targets(T builder, Operation op) {
+        /* off */
+        return builder
+                .executes(ctx -> apply(ctx, Collections.singleton(ctx.getSource().asPlayer()), op))
+                .then(Commands
+                        .argument("target", EntityArgument.players())
+                        .executes(ctx -> apply(ctx, EntityArgument.getPlayers(ctx, "target"), op))
+                )
+                .then(Commands
+                        .literal("dimension")
+                        .then(Commands
+                                .argument("dimension", DimensionArgument.getDimension())
+                                .executes(ctx -> apply(ctx, inDimension(ctx.getSource(), DimensionArgument.getDimensionArgument(ctx, "dimension")), op))
+                        )
+                )
+                .then(Commands
+                        .literal("near")
+                        .then(Commands
+                                .argument("pos", Vec3Argument.vec3())
+                                .then(Commands
+                                        .argument("radius", DoubleArgumentType.doubleArg(0))
+                                        .executes(ctx -> apply(ctx, near(ctx.getSource(), Vec3Argument.getVec3(ctx, "pos"), DoubleArgumentType.getDouble(ctx, "radius")), op))
+                                )
+                        )
+                );
+        /* on */
+    }
+
+    private static List<ServerPlayerEntity> inDimension(CommandSource source, DimensionType dimension) {
+        List<ServerPlayerEntity> players = Lists.newArrayList();
+        for (ServerPlayerEntity player : source.getServer().getPlayerList().getPlayers()) {
+            if (player.dimension == dimension) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+
+    private static List<ServerPlayerEntity> near(CommandSource source, Vec3d pos, double radius) {
+        DimensionType dimension = source.getWorld().getDimension().getType();
+        double radiusSq = radius * radius;
+        List<ServerPlayerEntity> players = Lists.newArrayList();
+        for (ServerPlayerEntity player : source.getServer().getPlayerList().getPlayers()) {
+            if (player.dimension == dimension && player.getDistanceSq(pos) <= radiusSq) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Changes every handler in one pass, then leaves the syncs to
+     * {@link PendingSyncQueue} so that a command on hundreds of players is
+     * sent over several ticks.
+     */
+    private static int apply(CommandContext<CommandSource> ctx, Collection<ServerPlayerEntity> players, Operation op) {
         int i = 0;
         for (ServerPlayerEntity player : players) {
             EverHandler handler = player.getCapability(EverCapabilities.HANDLER).orElse(null);
-            if (handler != null) {
-                handler.refill();
+            if (handler != null && op.apply(ctx, player, handler)) {
+                PendingSyncQueue.add(player.getUniqueID(), 0, SyncQueue.SYNC);
                 ++i;
             }
         }
+        ctx.getSource().sendFeedback(new TranslationTextComponent("commands.everpotion.updated", i), false);
         return i;
     }
+
+    private static boolean refill(CommandContext<CommandSource> ctx, ServerPlayerEntity player, EverHandler handler) {
+        handler.refill(false);
+        return true;
+    }
+
+    private static boolean reset(CommandContext<CommandSource> ctx, ServerPlayerEntity player, EverHandler handler) {
+        handler.resetProgress();
+        return true;
+    }
+
+    private static boolean setSlots(CommandContext<CommandSource> ctx, ServerPlayerEntity player, EverHandler handler) {
+        // the argument is bound by the hard limit, the config may be lower and change at runtime
+        int slots = Math.min(IntegerArgumentType.getInteger(ctx, "slots"), EverCommonConfig.maxSlots);
+        // cores in slots that get locked go back to the player
+        for (int i = slots; i < handler.getSlots(); i++) {
+            ItemStack stack = handler.getStackInSlot(i);
+            if (!stack.isEmpty()) {
+                handler.setStackInSlot(i, ItemStack.EMPTY);
+                ItemHandlerHelper.giveItemToPlayer(player, stack);
+            }
+        }
+        handler.setSlots(slots);
+        return true;
+    }
+
+    private static int stats(CommandContext<CommandSource> ctx) {
+        CommandSource source = ctx.getSource();
+        Histogram tick = Metrics.TICK;
+        feedback(source, String.format(Locale.ENGLISH, "tick: %d samples, mean %.3f ms, p50 <= %.3f ms, p99 <= %.3f ms", tick.getCount(), mean(tick), tick.getQuantile(.5) / 1e6, tick.getQuantile(.99) / 1e6));
+        feedback(source, String.format(Locale.ENGLISH, "handlers: %d active, %d scheduled, %d events fired", CoreModule.ACTIVE_HANDLERS.size(), CoreModule.SCHEDULER.size(), Metrics.HANDLER_UPDATES.get()));
+        StringBuilder drinks = new StringBuilder("drinks:");
+        for (PotionType type : PotionType.values()) {
+            drinks.append(' ').append(type).append(' ').append(Metrics.DRINKS[type.ordinal()].get());
+        }
+        feedback(source, drinks.toString());
+        feedback(source, String.format(Locale.ENGLISH, "sync: full %d (%d B), delta %d (%d B), checksum %d (%d B), %d pending", Metrics.SYNC_FULL_PACKETS.get(), Metrics.SYNC_FULL_BYTES.get(), Metrics.SYNC_DELTA_PACKETS.get(), Metrics.SYNC_DELTA_BYTES.get(), Metrics.CHECKSUM_PACKETS.get(), Metrics.CHECKSUM_BYTES.get(), PendingSyncQueue.size()));
+        feedback(source, String.format(Locale.ENGLISH, "drink requests: accepted %d, rejected %d", Metrics.DRINK_PACKETS.get(), Metrics.DRINK_PACKETS_REJECTED.get()));
+        Histogram anvil = Metrics.ANVIL_LOOKUP;
+        feedback(source, String.format(Locale.ENGLISH, "anvil lookups: %d, mean %.3f ms, p99 <= %.3f ms", anvil.getCount(), mean(anvil), anvil.getQuantile(.99) / 1e6));
+        feedback(source, String.format(Locale.ENGLISH, "clouds: spawned %d, merged %d", Metrics.CLOUDS_SPAWNED.get(), Metrics.CLOUDS_MERGED.get()));
+        return 1;
+    }
+
+    private static double mean(Histogram histogram) {
+        long count = histogram.getCount();
+        return count == 0 ? 0 : histogram.getSum() / 1e6 / count;
+    }
+
+    private static void feedback(CommandSource source, String msg) {
+        source.sendFeedback(new StringTextComponent(msg), false);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        /**
+         * @return whether the handler changed and needs a sync
+         */
+        boolean apply(CommandContext<CommandSource> ctx, ServerPlayerEntity player, EverHandler handler);
+    }
 }
@@ -8,6 +8,7 @@ import net.minecraftforge.common.ForgeConfigSpec.DoubleValue;
 import net.minecraftforge.common.ForgeConfigSpec.IntValue;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.config.ModConfig;
+import snownee.everpotion.handler.EverHandler;
 
 public final class EverCommonConfig {
 
@@ -17,6 +18,9 @@ public final class EverCommonConfig {
     public static int refillTime = 2400;
     public static boolean naturallyRefill = true;
     public static float damageAcceleration = 1;
+    public static int checksumInterval = 200;
+    public static int metricsDumpInterval = 0;
+    public static int syncBudget = 20;
 
     // slots
     public static int maxSlots = 3;
@@ -27,6 +31,7 @@ public final class EverCommonConfig {
     public static boolean ambient = true;
     public static boolean showParticles = true;
     public static boolean showIcon = true;
+    public static int splashMaxTargets = 0;
 
     public static float mobDropUnlockItem = 0.005f;
 
@@ -34,6 +39,9 @@ public final class EverCommonConfig {
     private static IntValue refillTimeVal;
     private static BooleanValue naturallyRefillVal;
     private static DoubleValue damageAccelerationVal;
+    private static IntValue checksumIntervalVal;
+    private static IntValue metricsDumpIntervalVal;
+    private static IntValue syncBudgetVal;
 
     private static IntValue maxSlotsVal;
     private static IntValue beginnerSlotsVal;
@@ -42,9 +50,17 @@ public final class EverCommonConfig {
     private static BooleanValue ambientVal;
     private static BooleanValue showParticlesVal;
     private static BooleanValue showIconVal;
+    private static IntValue splashMaxTargetsVal;
 
     private static DoubleValue mobDropUnlockItemVal;
 
+    /**
+     * Values of the remote server the client is connected to, or -1. They
+     * replace the local ones until the player leaves.
+     */
+    private static int serverRefillTime = -1;
+    private static int serverMaxSlots = -1;
+
     static {
         spec = new ForgeConfigSpec.Builder().configure(EverCommonConfig::new).getRight();
     }
@@ -54,16 +70,20 @@ public final class EverCommonConfig {
         refillTimeVal = builder.defineInRange("refillTime", refillTime, 5, 100000);
         naturallyRefillVal = builder.define("naturallyRefill", naturallyRefill);
         damageAccelerationVal = builder.comment("Damaging mobs can speed up refilling").defineInRange("damageAcceleration", damageAcceleration, 0, 10);
+        checksumIntervalVal = builder.comment("Ticks between checks that the client prediction has not drifted. 0 to disable").defineInRange("checksumInterval", checksumInterval, 0, 100000);
+        syncBudgetVal = builder.comment("Most players per tick that get a deferred sync, such as after joining a world or a bulk command").defineInRange("syncBudget", syncBudget, 1, 10000);
+        metricsDumpIntervalVal = builder.comment("Ticks between writes of the metrics to everpotion.prom in the world folder, in Prometheus text format. 0 to disable").defineInRange("metricsDumpInterval", metricsDumpInterval, 0, 1000000);
 
         builder.push("slots");
-        maxSlotsVal = builder.defineInRange("maxSlots", maxSlots, 1, 4);
-        beginnerSlotsVal = builder.defineInRange("beginnerSlots", beginnerSlots, 0, 4);
+        maxSlotsVal = builder.defineInRange("maxSlots", maxSlots, 1, EverHandler.MAX_SLOTS);
+        beginnerSlotsVal = builder.defineInRange("beginnerSlots", beginnerSlots, 0, EverHandler.MAX_SLOTS);
 
         builder.pop().push("effects");
         durationFactorVal = builder.defineInRange("durationFactor", durationFactor, 0, 100);
         ambientVal = builder.define("ambient", ambient);
         showParticlesVal = builder.define("showParticles", showParticles);
         showIconVal = builder.define("showIcon", showIcon);
+        splashMaxTargetsVal = builder.comment("Most entities one splash can affect, drinker included. 0 for no limit").defineInRange("splashMaxTargets", splashMaxTargets, 0, 10000);
 
         builder.pop().push("temp");
         mobDropUnlockItemVal = builder.defineInRange("mobDropUnlockItem", mobDropUnlockItem, 0, 1);
@@ -71,18 +91,40 @@ public final class EverCommonConfig {
 
     public static void refresh() {
         drinkDelay = drinkDelayVal.get();
-        refillTime = refillTimeVal.get();
+        refillTime = serverRefillTime > 0 ? serverRefillTime : refillTimeVal.get();
         naturallyRefill = naturallyRefillVal.get();
         damageAcceleration = damageAccelerationVal.get().floatValue();
-        maxSlots = maxSlotsVal.get();
+        checksumInterval = checksumIntervalVal.get();
+        metricsDumpInterval = metricsDumpIntervalVal.get();
+        syncBudget = syncBudgetVal.get();
+        maxSlots = serverMaxSlots > 0 ? serverMaxSlots : maxSlotsVal.get();
         beginnerSlots = beginnerSlotsVal.get();
         durationFactor = durationFactorVal.get().floatValue();
         ambient = ambientVal.get();
         showParticles = showParticlesVal.get();
         showIcon = showIconVal.get();
+        splashMaxTargets = splashMaxTargetsVal.get();
         mobDropUnlockItem = mobDropUnlockItemVal.get().floatValue();
     }
 
+    /**
+     * Adopts the values a remote server sent along with a full sync, which
+     * the client has to share to predict the same progress.
+     */
+    public static void applyServer(int refillTime, int maxSlots) {
+        serverRefillTime = refillTime;
+        serverMaxSlots = maxSlots;
+        EverCommonConfig.refillTime = refillTime;
+        EverCommonConfig.maxSlots = maxSlots;
+    }
+
+    public static void clearServer() {
+        if (serverRefillTime != -1) {
+            serverRefillTime = serverMaxSlots = -1;
+            refresh();
+        }
+    }
+
     @SubscribeEvent
     public static void onFileChange(ModConfig.Reloading event) {
         ((CommentedFileConfig) event.getConfig().getConfigData()).load();
@@ -1,5 +1,8 @@
 package snownee.everpotion;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
 
@@ -8,5 +11,6 @@ import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
 public final class EverPotion {
 
     public static final String MODID = "everpotion";
+    public static final Logger LOGGER = LogManager.getLogger(MODID);
 
 }
@@ -1,53 +1,56 @@
 package snownee.everpotion.client;
 
+import java.util.Collections;
+
 import org.lwjgl.glfw.GLFW;
 
 import net.minecraft.client.Minecraft;
-import net.minecraft.client.renderer.Vector3f;
+import net.minecraft.client.gui.screen.inventory.CreativeScreen;
 import net.minecraft.client.renderer.color.ItemColors;
 import net.minecraft.client.settings.KeyBinding;
-import net.minecraft.potion.EffectInstance;
-import net.minecraft.util.math.MathHelper;
+import net.minecraft.client.util.IMutableSearchTree;
+import net.minecraft.client.util.SearchTreeManager;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemGroup;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.NonNullList;
 import net.minecraft.util.text.ChatType;
 import net.minecraft.util.text.TranslationTextComponent;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
 import net.minecraftforge.client.event.ColorHandlerEvent;
+import net.minecraftforge.client.event.GuiOpenEvent;
 import net.minecraftforge.client.event.InputEvent.KeyInputEvent;
 import net.minecraftforge.client.event.RenderGameOverlayEvent;
 import net.minecraftforge.client.event.RenderGameOverlayEvent.ElementType;
 import net.minecraftforge.client.settings.KeyModifier;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus;
+import net.minecraftforge.registries.ForgeRegistries;
 import snownee.everpotion.CoreModule;
+import snownee.everpotion.EverCommonConfig;
 import snownee.everpotion.cap.EverCapabilities;
 import snownee.everpotion.client.gui.UseScreen;
+import snownee.everpotion.crafting.CoreCatalog;
 import snownee.everpotion.handler.EverHandler;
-import snownee.everpotion.item.CoreItem;
 import snownee.everpotion.item.UnlockSlotItem;
 import snownee.everpotion.network.COpenContainerPacket;
-import snownee.kiwi.util.MathUtil;
 
 @OnlyIn(Dist.CLIENT)
 @EventBusSubscriber(bus = Bus.MOD, value = Dist.CLIENT)
 public final class ClientHandler {
 
+    private static boolean searchTreeDirty;
+
     @SubscribeEvent
     public static void onItemColorsInit(ColorHandlerEvent.Item event) {
         ItemColors colors = event.getItemColors();
         colors.register((stack, i) -> {
             if (i == 0) {
-                EffectInstance effect = CoreItem.getEffectInstance(stack);
-                int rgb;
-                if (effect != null) {
-                    rgb = effect.getPotion().getLiquidColor();
-                } else {
-                    rgb = 3694022;
-                }
-                Vector3f hsv = MathUtil.RGBtoHSV(rgb);
-                hsv.mul(1, .75f, 1);
-                return MathHelper.hsvToRGB(hsv.getX(), hsv.getY(), hsv.getZ());
+                return CorePresentation.of(stack).tint;
             }
             return -1;
         }, CoreModule.CORE);
@@ -57,7 +60,7 @@ public final class ClientHandler {
             if (i == 1) {
                 int tier = UnlockSlotItem.getTier(stack);
                 switch (tier) {
-                default:
+                case 0:
                     return 16733525;
                 case 1:
                     return 16777215;
@@ -65,7 +68,7 @@ public final class ClientHandler {
                     return 16777045;
                 case 3:
                     return 5636095;
-                case 4:
+                default:
                     return 16733695;
                 }
             }
@@ -101,6 +104,51 @@ public final class ClientHandler {
         }
     }
 
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        Minecraft mc = Minecraft.getInstance();
+        if (event.phase == TickEvent.Phase.END && mc.player != null) {
+            mc.player.getCapability(EverCapabilities.HANDLER).ifPresent(EverHandler::update);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLoggedOut(ClientPlayerNetworkEvent.LoggedOutEvent event) {
+        EverCommonConfig.clearServer();
+        if (CoreCatalog.setClient(Collections.emptyList())) {
+            markSearchTreeDirty();
+        }
+    }
+
+    /**
+     * Cores in the creative search come from the catalog the server sends,
+     * which arrives after the tree was built at startup. Rebuilding the tree
+     * asks every item for its stacks, so it waits until the creative screen
+     * is opened.
+     */
+    public static void markSearchTreeDirty() {
+        searchTreeDirty = true;
+    }
+
+    @SubscribeEvent
+    public static void onGuiOpen(GuiOpenEvent event) {
+        if (searchTreeDirty && event.getGui() instanceof CreativeScreen) {
+            searchTreeDirty = false;
+            rebuildSearchTree();
+        }
+    }
+
+    private static void rebuildSearchTree() {
+        IMutableSearchTree<ItemStack> tree = Minecraft.getInstance().getSearchTree(SearchTreeManager.ITEMS);
+        tree.clear();
+        NonNullList<ItemStack> stacks = NonNullList.create();
+        for (Item item : ForgeRegistries.ITEMS) {
+            item.fillItemGroup(ItemGroup.SEARCH, stacks);
+        }
+        stacks.forEach(tree::add);
+        tree.recalculate();
+    }
+
     @SubscribeEvent
     public static void renderOverlay(RenderGameOverlayEvent event) {
         Minecraft mc = Minecraft.getInstance();
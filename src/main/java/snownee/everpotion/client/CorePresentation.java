@@ -0,0 +1,97 @@
+package snownee.everpotion.client;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.item.ItemStack;
+import net.minecraft.potion.EffectInstance;
+import net.minecraft.potion.EffectUtils;
+import net.minecraft.util.text.ITextComponent;
+import net.minecraft.util.text.TextFormatting;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import snownee.everpotion.EverCommonConfig;
+import snownee.everpotion.PotionType;
+import snownee.everpotion.item.CoreSpec;
+
+/**
+ * Everything the client shows for a core, built once per interned
+ * {@link CoreSpec}: the tint and the tooltip lines.
+ * Cleared on resource and language reloads, and when the duration factor of
+ * the config changes. Only touched from the client thread.
+ */
+@OnlyIn(Dist.CLIENT)
+public final class CorePresentation {
+
+    private static final int MAX_SIZE = 2048;
+    private static final Reference2ObjectOpenHashMap<CoreSpec, CorePresentation> CACHE = new Reference2ObjectOpenHashMap<>();
+    private static float durationFactor = Float.NaN;
+
+    public final int tint;
+    /**
+     * Shared between every tooltip of this core, hand out copies with
+     * {@link #addTooltip(List)}.
+     */
+    private final List<ITextComponent> tooltip;
+
+    private CorePresentation(CoreSpec spec) {
+        tint = spec.itemColor;
+        List<ITextComponent> lines = Lists.newArrayListWithCapacity(2);
+        EffectInstance effect = spec.effect;
+        if (effect != null) {
+            ITextComponent line = new TranslationTextComponent(effect.getEffectName());
+            if (effect.getAmplifier() > 0) {
+                line.appendText(" ").appendSibling(new TranslationTextComponent("potion.potency." + effect.getAmplifier()));
+            }
+            if (effect.getDuration() > 20) {
+                line.appendText(" (").appendText(EffectUtils.getPotionDurationString(effect, EverCommonConfig.durationFactor)).appendText(")");
+            }
+            lines.add(line.applyTextStyle(effect.getPotion().getEffectType().getColor()));
+        } else {
+            lines.add(new TranslationTextComponent("effect.none").applyTextStyle(TextFormatting.GRAY));
+        }
+        if (spec.type != PotionType.NORMAL) {
+            lines.add(new TranslationTextComponent("tip.everpotion.potionType." + spec.type.toString()).applyTextStyle(TextFormatting.GRAY));
+        }
+        tooltip = Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Adds copies of the cached lines, since tooltip listeners of other mods
+     * may restyle or append to them.
+     */
+    public void addTooltip(List<ITextComponent> lines) {
+        for (ITextComponent line : tooltip) {
+            lines.add(line.deepCopy());
+        }
+    }
+
+    public static CorePresentation of(ItemStack stack) {
+        return of(CoreSpec.of(stack));
+    }
+
+    public static CorePresentation of(CoreSpec spec) {
+        if (durationFactor != EverCommonConfig.durationFactor) {
+            durationFactor = EverCommonConfig.durationFactor;
+            CACHE.clear();
+        }
+        CorePresentation presentation = CACHE.get(spec);
+        if (presentation == null) {
+            // specs are interned weakly, do not let this map keep every core ever seen
+            if (CACHE.size() >= MAX_SIZE) {
+                CACHE.clear();
+            }
+            presentation = new CorePresentation(spec);
+            CACHE.put(spec, presentation);
+        }
+        return presentation;
+    }
+
+    public static void clear() {
+        CACHE.clear();
+    }
+}
@@ -6,7 +6,6 @@ import net.minecraft.client.gui.screen.inventory.ContainerScreen;
 import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.ITextComponent;
-import snownee.everpotion.EverCommonConfig;
 import snownee.everpotion.container.PlaceContainer;
 
 public class PlaceScreen extends ContainerScreen<PlaceContainer> {
@@ -16,7 +15,7 @@ public class PlaceScreen extends ContainerScreen<PlaceContainer> {
     public PlaceScreen(PlaceContainer screenContainer, PlayerInventory inv, ITextComponent titleIn) {
         super(screenContainer, inv, titleIn);
         this.passEvents = false;
-        this.ySize = 133;
+        this.ySize = 133 + screenContainer.getExtraHeight();
     }
 
     @Override
@@ -44,9 +43,13 @@ public class PlaceScreen extends ContainerScreen<PlaceContainer> {
         this.minecraft.getTextureManager().bindTexture(HOPPER_GUI_TEXTURE);
         int i = (this.width - this.xSize) / 2;
         int j = (this.height - this.ySize) / 2;
+        if (!container.isHopperLayout()) {
+            drawRows(i, j);
+            return;
+        }
         this.blit(i, j, 0, 0, this.xSize, this.ySize);
         int slots = container.getSlots();
-        int xOffset = 2 - EverCommonConfig.maxSlots / 2;
+        int xOffset = container.getHopperOffset();
         int xStart = guiLeft + 43 + xOffset * 18;
         if (xOffset > 0) {
             fill(guiLeft + 43, guiTop + 19, xStart, guiTop + 39, 0xffc6c6c6);
@@ -55,4 +58,23 @@ public class PlaceScreen extends ContainerScreen<PlaceContainer> {
         fill(xStart, guiTop + 19, guiLeft + 133, guiTop + 39, 0xffc6c6c6);
     }
 
+    /**
+     * Stretches the hopper texture by one band per row of slots, then draws
+     * a slot frame taken from the hopper under every unlocked slot.
+     */
+    private void drawRows(int i, int j) {
+        int rows = container.getRows();
+        this.blit(i, j, 0, 0, this.xSize, 19);
+        for (int row = 0; row < rows; row++) {
+            this.blit(i, j + 19 + row * 18, 0, 19, this.xSize, 18);
+        }
+        this.blit(i, j + 19 + rows * 18, 0, 37, this.xSize, 96);
+        fill(i + 43, j + 19, i + 133, j + 19 + rows * 18, 0xffc6c6c6);
+        this.minecraft.getTextureManager().bindTexture(HOPPER_GUI_TEXTURE);
+        int slots = container.getSlots();
+        for (int k = 0; k < slots; k++) {
+            this.blit(i + container.getSlotX(k) - 1, j + 19 + k / PlaceContainer.ROW_SIZE * 18, 43, 19, 18, 18);
+        }
+    }
+
 }
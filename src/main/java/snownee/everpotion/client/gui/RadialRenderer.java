@@ -0,0 +1,98 @@
+package snownee.everpotion.client.gui;
+
+import org.lwjgl.opengl.GL11;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+
+/**
+ * Collects the untextured geometry of every button of {@link UseScreen} into
+ * one {@link BufferBuilder} pass, so a frame of the radial menu costs one draw
+ * call and one round of state changes instead of about ten per button.
+ * Everything is emitted as quads, the triangle fan of the drink indicator is
+ * split into a quad and a degenerate quad.
+ */
+public final class RadialRenderer {
+
+    private BufferBuilder buffer;
+
+    public void begin() {
+        buffer = Tessellator.getInstance().getBuffer();
+        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
+    }
+
+    /**
+     * Square rotated by 45 degrees.
+     */
+    public void diamond(float x, float y, float hd, float r, float g, float b, float a) {
+        vertex(x - hd, y, r, g, b, a);
+        vertex(x, y + hd, r, g, b, a);
+        vertex(x + hd, y, r, g, b, a);
+        vertex(x, y - hd, r, g, b, a);
+    }
+
+    /**
+     * Band between two diamonds, with the alpha blended from the inner to the
+     * outer edge.
+     */
+    public void ring(float x, float y, float inner, float outer, float r, float g, float b, float innerA, float outerA) {
+        ringQuad(x, y, inner, outer, 1, -1, r, g, b, innerA, outerA);
+        ringQuad(x, y, inner, outer, 1, 1, r, g, b, innerA, outerA);
+        ringQuad(x, y, inner, outer, -1, 1, r, g, b, innerA, outerA);
+        ringQuad(x, y, inner, outer, -1, -1, r, g, b, innerA, outerA);
+    }
+
+    private void ringQuad(float x, float y, float inner, float outer, int dx, int dy, float r, float g, float b, float innerA, float outerA) {
+        vertex(x, y + dy * outer, r, g, b, outerA);
+        vertex(x + dx * outer, y, r, g, b, outerA);
+        vertex(x + dx * inner, y, r, g, b, innerA);
+        vertex(x, y + dy * inner, r, g, b, innerA);
+    }
+
+    /**
+     * Part of the diamond below the given height, which rises from the bottom
+     * corner at -hd to the top corner at hd.
+     */
+    public void fill(float x, float y, float hd, float h, float r, float g, float b, float a) {
+        float left = x - hd + Math.abs(h);
+        float right = x + hd - Math.abs(h);
+        if (h > 0) {
+            vertex(right, y - h, r, g, b, a);
+            vertex(x + hd, y, r, g, b, a);
+            vertex(x, y + hd, r, g, b, a);
+            vertex(x - hd, y, r, g, b, a);
+            vertex(right, y - h, r, g, b, a);
+            vertex(x - hd, y, r, g, b, a);
+            vertex(left, y - h, r, g, b, a);
+            vertex(left, y - h, r, g, b, a);
+        } else {
+            vertex(right, y - h, r, g, b, a);
+            vertex(x, y + hd, r, g, b, a);
+            vertex(left, y - h, r, g, b, a);
+            vertex(left, y - h, r, g, b, a);
+        }
+    }
+
+    private void vertex(float x, float y, float r, float g, float b, float a) {
+        buffer.pos(x, y, 0).color(r, g, b, a).endVertex();
+    }
+
+    /**
+     * Draws everything collected since {@link #begin()}. Expects blending to
+     * be enabled already.
+     */
+    public void draw() {
+        RenderSystem.defaultBlendFunc();
+        RenderSystem.disableTexture();
+        RenderSystem.disableAlphaTest();
+        RenderSystem.shadeModel(GL11.GL_SMOOTH);
+        Tessellator.getInstance().draw();
+        RenderSystem.shadeModel(GL11.GL_FLAT);
+        RenderSystem.enableAlphaTest();
+        RenderSystem.enableTexture();
+        buffer = null;
+    }
+}
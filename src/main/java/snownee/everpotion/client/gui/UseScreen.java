@@ -7,10 +7,7 @@ import com.mojang.blaze3d.systems.RenderSystem;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.renderer.BufferBuilder;
-import net.minecraft.client.renderer.Matrix4f;
 import net.minecraft.client.renderer.Tessellator;
-import net.minecraft.client.renderer.TransformationMatrix;
-import net.minecraft.client.renderer.texture.PotionSpriteUploader;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.client.resources.I18n;
@@ -26,14 +23,42 @@ import snownee.everpotion.EverCommonConfig;
 import snownee.everpotion.cap.EverCapabilities;
 import snownee.everpotion.client.ClientHandler;
 import snownee.everpotion.handler.EverHandler;
-import snownee.everpotion.handler.EverHandler.Cache;
+import snownee.everpotion.item.CoreSpec;
 
 public class UseScreen extends Screen {
 
     private static final ITextComponent TITLE = new TranslationTextComponent("gui.everpotion.use.title");
+    private static final float HALF_DIAGONAL = 40;
+    private static final String[] PERCENTS = new String[101];
+
+    static {
+        for (int i = 0; i < PERCENTS.length; i++) {
+            PERCENTS[i] = i + "%";
+        }
+    }
+
     private EverHandler handler;
-    private final float[] scales = new float[4];
-    private final String[] names = new String[4];
+    private final RadialRenderer renderer = new RadialRenderer();
+    private final float[] xs = new float[EverHandler.MAX_SLOTS];
+    private final float[] ys = new float[EverHandler.MAX_SLOTS];
+    private final boolean[] hovers = new boolean[EverHandler.MAX_SLOTS];
+    private final float[] scales = new float[EverHandler.MAX_SLOTS];
+    private final String[] names = new String[EverHandler.MAX_SLOTS];
+    private final TextureAtlasSprite[] sprites = new TextureAtlasSprite[EverHandler.MAX_SLOTS];
+    /**
+     * Min U, max U, min V and max V of each sprite.
+     */
+    private final float[] uvs = new float[EverHandler.MAX_SLOTS * 4];
+    private int presentedVersion = Integer.MIN_VALUE;
+    /**
+     * Size of the buttons relative to the four slot layouts, smaller when
+     * more buttons share the ring.
+     */
+    private float buttonScale = 1;
+    /**
+     * Distance from the center beyond which a click closes the menu.
+     */
+    private float range;
     private boolean closing;
     private float openTick;
     private int clickIndex = -1;
@@ -62,6 +87,8 @@ public class UseScreen extends Screen {
             return;
         }
 
+        refresh();
+
         float aTicks = Animation.getWorldTime(minecraft.world, pTicks) * 0.005f;
 
         openTick += closing ? -aTicks * .4f : aTicks * .2f;
@@ -73,7 +100,7 @@ public class UseScreen extends Screen {
 
         float xCenter = width / 2f;
         float yCenter = height / 2f;
-        if (EverCommonConfig.maxSlots == 3) {
+        if (getButtonCount() == 3) {
             yCenter += 20;
         }
 
@@ -85,24 +112,22 @@ public class UseScreen extends Screen {
         }
 
         float offset = 35 + openTick * 25;
-        Matrix4f matrix = TransformationMatrix.identity().getMatrix();
-        if (EverCommonConfig.maxSlots == 1) {
-            drawButton(matrix, xCenter, yCenter, mouseX, mouseY, 0, aTicks);
-        } else if (EverCommonConfig.maxSlots == 2) {
-            drawButton(matrix, xCenter - offset, yCenter, mouseX, mouseY, 0, aTicks);
-            drawButton(matrix, xCenter + offset, yCenter, mouseX, mouseY, 1, aTicks);
-        } else if (EverCommonConfig.maxSlots == 3) {
-            drawButton(matrix, xCenter - offset, yCenter, mouseX, mouseY, 0, aTicks);
-            drawButton(matrix, xCenter, yCenter - offset, mouseX, mouseY, 1, aTicks);
-            drawButton(matrix, xCenter + offset, yCenter, mouseX, mouseY, 2, aTicks);
-        } else if (EverCommonConfig.maxSlots == 4) {
-            drawButton(matrix, xCenter - offset, yCenter, mouseX, mouseY, 0, aTicks);
-            drawButton(matrix, xCenter, yCenter - offset, mouseX, mouseY, 1, aTicks);
-            drawButton(matrix, xCenter + offset, yCenter, mouseX, mouseY, 2, aTicks);
-            drawButton(matrix, xCenter, yCenter + offset, mouseX, mouseY, 3, aTicks);
+        int count = layout(xCenter, yCenter, offset);
+        for (int i = 0; i < count; i++) {
+            updateButton(i, mouseX, mouseY, aTicks);
+        }
+        // every button's geometry in one pass, then the sprites in another
+        RenderSystem.enableBlend();
+        renderer.begin();
+        for (int i = 0; i < count; i++) {
+            addGeometry(i);
+        }
+        renderer.draw();
+        drawSprites(count);
+        for (int i = 0; i < count; i++) {
+            drawLabel(i);
         }
         if (clickIndex < 0) {
-            int range = EverCommonConfig.maxSlots == 1 ? 60 : 120;
             boolean out = Math.abs(mouseX - xCenter) + Math.abs(mouseY - yCenter) > range;
             clickIndex = out ? -2 : -1;
         }
@@ -112,205 +137,204 @@ public class UseScreen extends Screen {
         super.render(mouseX, mouseY, pTicks);
     }
 
-    @SuppressWarnings("null")
-    private void drawButton(Matrix4f matrix, float xCenter, float yCenter, int mouseX, int mouseY, int index, float pTicks) {
-        Cache cache = handler.caches[index];
-        float a = .5F * openTick;
+    /**
+     * @return the slot limit the server synced, or more if a command unlocked
+     *         them
+     */
+    private int getButtonCount() {
+        return MathHelper.clamp(Math.max(EverCommonConfig.maxSlots, handler.getSlots()), 1, EverHandler.MAX_SLOTS);
+    }
+
+    private int layout(float xCenter, float yCenter, float offset) {
+        int count = getButtonCount();
+        buttonScale = 1;
+        range = count == 1 ? 60 : 120;
+        if (count > 4) {
+            // evenly on a ring, clockwise from the left, shrinking the buttons until neighbors fit
+            float radius = Math.min(width, height) * (.3f + .1f * openTick);
+            float half = radius * MathHelper.sin((float) Math.PI / count);
+            buttonScale = Math.min(1, half / (HALF_DIAGONAL + 14));
+            // clicks are tested by manhattan distance, which reaches 1.41 radius on the diagonals
+            range = radius * 1.42f + (HALF_DIAGONAL + 14) * buttonScale;
+            for (int i = 0; i < count; i++) {
+                float angle = (float) Math.PI * (1 + 2f * i / count);
+                setCenter(i, xCenter + radius * MathHelper.cos(angle), yCenter + radius * MathHelper.sin(angle));
+            }
+        } else if (count == 1) {
+            setCenter(0, xCenter, yCenter);
+        } else if (count == 2) {
+            setCenter(0, xCenter - offset, yCenter);
+            setCenter(1, xCenter + offset, yCenter);
+        } else {
+            setCenter(0, xCenter - offset, yCenter);
+            setCenter(1, xCenter, yCenter - offset);
+            setCenter(2, xCenter + offset, yCenter);
+            if (count == 4) {
+                setCenter(3, xCenter, yCenter + offset);
+            }
+        }
+        return count;
+    }
+
+    private void setCenter(int index, float x, float y) {
+        xs[index] = x;
+        ys[index] = y;
+    }
 
-        float hd = 40;
-        boolean hover = !closing && cache != null && openTick == 1 && Math.abs(mouseX - xCenter) + Math.abs(mouseY - yCenter) < hd + 10;
+    private void updateButton(int index, int mouseX, int mouseY, float pTicks) {
+        CoreSpec spec = handler.getSpec(index);
+        boolean hover = !closing && spec != null && openTick == 1 && Math.abs(mouseX - xs[index]) + Math.abs(mouseY - ys[index]) < (HALF_DIAGONAL + 10) * buttonScale;
         hover = hover && (handler.drinkIndex == index || handler.drinkIndex == -1);
         if (hover) {
             clickIndex = index;
         } else if (clickIndex == index) {
             clickIndex = -1;
         }
+        hovers[index] = hover;
 
         scales[index] += (hover ? pTicks : -pTicks) * 0.5f;
         scales[index] = MathHelper.clamp(scales[index], 0, 1);
-        hd += scales[index] * 5;
+    }
+
+    private void addGeometry(int index) {
+        float xCenter = xs[index];
+        float yCenter = ys[index];
+        boolean hover = hovers[index];
+        float scale = scales[index];
+        float hd = (HALF_DIAGONAL + scale * 5) * buttonScale;
 
         float r, g, b;
         if (hover) {
-            int color = cache.color;
-            r = Math.max(.1F, (color >> 16 & 255) / 255.0F * .2f * scales[index]);
-            g = Math.max(.1F, (color >> 8 & 255) / 255.0F * .2f * scales[index]);
-            b = Math.max(.1F, (color & 255) / 255.0F * .2f * scales[index]);
+            int color = handler.getSpec(index).color;
+            r = Math.max(.1F, (color >> 16 & 255) / 255.0F * .2f * scale);
+            g = Math.max(.1F, (color >> 8 & 255) / 255.0F * .2f * scale);
+            b = Math.max(.1F, (color & 255) / 255.0F * .2f * scale);
         } else {
             r = .1F;
             g = .1F;
             b = .1F;
         }
-        RenderSystem.enableBlend();
-        RenderSystem.defaultBlendFunc();
-        RenderSystem.disableTexture();
-        Tessellator tessellator = Tessellator.getInstance();
-        BufferBuilder buffer = tessellator.getBuffer();
-        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
-        buffer.pos(matrix, xCenter - hd, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter, yCenter + hd, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter + hd, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter, yCenter - hd, 0.0F).color(r, g, b, a).endVertex();
-        tessellator.draw();
-
-        a = .75f * openTick;
+        renderer.diamond(xCenter, yCenter, hd, r, g, b, .5F * openTick);
+
         if (hover) {
-            int color = cache.color;
-            r = Math.max(.1F, (color >> 16 & 255) / 255.0F * scales[index]);
-            g = Math.max(.1F, (color >> 8 & 255) / 255.0F * scales[index]);
-            b = Math.max(.1F, (color & 255) / 255.0F * scales[index]);
+            int color = handler.getSpec(index).color;
+            r = Math.max(.1F, (color >> 16 & 255) / 255.0F * scale);
+            g = Math.max(.1F, (color >> 8 & 255) / 255.0F * scale);
+            b = Math.max(.1F, (color & 255) / 255.0F * scale);
         }
-
-        float hdborder = hd + 3;
-
-        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
-        buffer.pos(matrix, xCenter, yCenter - hdborder, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter + hdborder, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter + hd, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter, yCenter - hd, 0.0F).color(r, g, b, a).endVertex();
-        tessellator.draw();
-        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
-        buffer.pos(matrix, xCenter, yCenter + hdborder, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter + hdborder, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter + hd, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter, yCenter + hd, 0.0F).color(r, g, b, a).endVertex();
-        tessellator.draw();
-        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
-        buffer.pos(matrix, xCenter, yCenter + hdborder, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter - hdborder, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter - hd, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter, yCenter + hd, 0.0F).color(r, g, b, a).endVertex();
-        tessellator.draw();
-        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
-        buffer.pos(matrix, xCenter, yCenter - hdborder, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter - hdborder, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter - hd, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter, yCenter - hd, 0.0F).color(r, g, b, a).endVertex();
-        tessellator.draw();
+        float hdborder = hd + 3 * buttonScale;
+        float a = .75f * openTick;
+        renderer.ring(xCenter, yCenter, hd, hdborder, r, g, b, a, a);
 
         if (handler.drinkIndex == index) {
             float h = hd * drinkTick * 2 / EverCommonConfig.drinkDelay - hd;
-            float ia = .2f;
-            buffer.begin(GL11.GL_TRIANGLE_FAN, DefaultVertexFormats.POSITION_COLOR);
-            buffer.pos(matrix, xCenter + hd - Math.abs(h), yCenter - h, 0.0F).color(1, 1, 1, ia).endVertex();
-            if (h > 0) {
-                buffer.pos(matrix, xCenter + hd, yCenter, 0.0F).color(1, 1, 1, ia).endVertex();
-            }
-            buffer.pos(matrix, xCenter, yCenter + hd, 0.0F).color(1, 1, 1, ia).endVertex();
-            if (h > 0) {
-                buffer.pos(matrix, xCenter - hd, yCenter, 0.0F).color(1, 1, 1, ia).endVertex();
-            }
-            buffer.pos(matrix, xCenter - hd + Math.abs(h), yCenter - h, 0.0F).color(1, 1, 1, ia).endVertex();
-            tessellator.draw();
+            renderer.fill(xCenter, yCenter, hd, h, 1, 1, 1, .2f);
         }
 
-        float hdshadow;
         if (hover) {
-            a = .3f * openTick;
-            hdshadow = hdborder + 6;
+            renderer.ring(xCenter, yCenter, hdborder, hdborder + 6 * buttonScale, .1F, .1F, .1F, .3f * openTick, 0);
         } else {
-            a = .2f * openTick;
-            hdshadow = hdborder + 5;
+            renderer.ring(xCenter, yCenter, hdborder, hdborder + 5 * buttonScale, .1F, .1F, .1F, .2f * openTick, 0);
         }
-        r = .1F;
-        g = .1F;
-        b = .1F;
-
-        RenderSystem.disableAlphaTest();
-        RenderSystem.shadeModel(GL11.GL_SMOOTH);
-        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
-        buffer.pos(matrix, xCenter, yCenter - hdshadow, 0.0F).color(r, g, b, 0).endVertex();
-        buffer.pos(matrix, xCenter + hdshadow, yCenter, 0.0F).color(r, g, b, 0).endVertex();
-        buffer.pos(matrix, xCenter + hdborder, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter, yCenter - hdborder, 0.0F).color(r, g, b, a).endVertex();
-        tessellator.draw();
-        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
-        buffer.pos(matrix, xCenter, yCenter + hdshadow, 0.0F).color(r, g, b, 0).endVertex();
-        buffer.pos(matrix, xCenter + hdshadow, yCenter, 0.0F).color(r, g, b, 0).endVertex();
-        buffer.pos(matrix, xCenter + hdborder, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter, yCenter + hdborder, 0.0F).color(r, g, b, a).endVertex();
-        tessellator.draw();
-        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
-        buffer.pos(matrix, xCenter, yCenter + hdshadow, 0.0F).color(r, g, b, 0).endVertex();
-        buffer.pos(matrix, xCenter - hdshadow, yCenter, 0.0F).color(r, g, b, 0).endVertex();
-        buffer.pos(matrix, xCenter - hdborder, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter, yCenter + hdborder, 0.0F).color(r, g, b, a).endVertex();
-        tessellator.draw();
-        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
-        buffer.pos(matrix, xCenter, yCenter - hdshadow, 0.0F).color(r, g, b, 0).endVertex();
-        buffer.pos(matrix, xCenter - hdshadow, yCenter, 0.0F).color(r, g, b, 0).endVertex();
-        buffer.pos(matrix, xCenter - hdborder, yCenter, 0.0F).color(r, g, b, a).endVertex();
-        buffer.pos(matrix, xCenter, yCenter - hdborder, 0.0F).color(r, g, b, a).endVertex();
-        tessellator.draw();
-        RenderSystem.shadeModel(GL11.GL_FLAT);
-        RenderSystem.enableAlphaTest();
-        RenderSystem.enableTexture();
-
-        refreshName(index);
-        RenderSystem.pushMatrix();
-        RenderSystem.color4f(1, 1, 1, openTick);
+    }
+
+    /**
+     * Potion sprites all live on the same atlas, so they share one bind and
+     * one draw.
+     */
+    private void drawSprites(int count) {
+        BufferBuilder buffer = null;
+        for (int i = 0; i < count; i++) {
+            if (sprites[i] == null) {
+                continue;
+            }
+            if (buffer == null) {
+                RenderSystem.color4f(1, 1, 1, openTick);
+                sprites[i].getAtlasTexture().bindTexture();
+                buffer = Tessellator.getInstance().getBuffer();
+                buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX);
+            }
+            float yCenter2 = ys[i] - 6 * (1 + 0.125f * scales[i]) * buttonScale;
+            float halfwidth = (12 + 1.5f * scales[i]) * buttonScale;
+            float left = xs[i] - halfwidth;
+            float right = xs[i] + halfwidth;
+            float top = yCenter2 - halfwidth;
+            float bottom = yCenter2 + halfwidth;
+            int uv = i * 4;
+            buffer.pos(left, bottom, 0).tex(uvs[uv], uvs[uv + 3]).endVertex();
+            buffer.pos(right, bottom, 0).tex(uvs[uv + 1], uvs[uv + 3]).endVertex();
+            buffer.pos(right, top, 0).tex(uvs[uv + 1], uvs[uv + 2]).endVertex();
+            buffer.pos(left, top, 0).tex(uvs[uv], uvs[uv + 2]).endVertex();
+        }
+        if (buffer != null) {
+            Tessellator.getInstance().draw();
+        }
+    }
+
+    private void drawLabel(int index) {
+        CoreSpec spec = handler.getSpec(index);
         int textAlpha = (int) (openTick * 255);
         int textColor = textAlpha << 24 | 0xffffff;
 
         String name = names[index];
-        if (cache != null && cache.progress < EverCommonConfig.refillTime) {
-            float percent = 100 * cache.progress / EverCommonConfig.refillTime;
-            name = (int) percent + "%";
+        if (spec != null) {
+            float progress = handler.getProgress(index);
+            if (progress < EverCommonConfig.refillTime) {
+                name = PERCENTS[MathHelper.clamp((int) (100 * progress / EverCommonConfig.refillTime), 0, 100)];
+            }
         }
 
-        if (cache == null) {
-            RenderSystem.translatef(xCenter, yCenter - 3, 0);
-            RenderSystem.scalef(0.75f, 0.75f, 0.75f);
-            drawCenteredString(font, name, 0, 0, textColor);
-        } else if (cache.effect != null) {
-            PotionSpriteUploader potionspriteuploader = this.minecraft.getPotionSpriteUploader();
-            TextureAtlasSprite sprite = potionspriteuploader.getSprite(cache.effect.getPotion());
-            sprite.getAtlasTexture().bindTexture();
-
-            blit((int) xCenter - 12, (int) yCenter - 18, this.getBlitOffset(), 24, 24, sprite);
-
-            float yCenter2 = yCenter - 6 * (1 + 0.125f * scales[index]);
-            float halfwidth = 12 + 1.5f * scales[index];
-            float left = xCenter - halfwidth;
-            float right = xCenter + halfwidth;
-            float top = yCenter2 - halfwidth;
-            float bottom = yCenter2 + halfwidth;
-
-            buffer.begin(7, DefaultVertexFormats.POSITION_TEX);
-            buffer.pos(left, bottom, 0).tex(sprite.getMinU(), sprite.getMaxV()).endVertex();
-            buffer.pos(right, bottom, 0).tex(sprite.getMaxU(), sprite.getMaxV()).endVertex();
-            buffer.pos(right, top, 0).tex(sprite.getMaxU(), sprite.getMinV()).endVertex();
-            buffer.pos(left, top, 0).tex(sprite.getMinU(), sprite.getMinV()).endVertex();
-            tessellator.draw();
-
-            RenderSystem.translatef(xCenter, yCenter + 10, 0);
-            RenderSystem.scalef(0.75f, 0.75f, 0.75f);
-            drawCenteredString(font, name, 0, 0, textColor);
+        RenderSystem.pushMatrix();
+        if (spec != null && spec.effect != null) {
+            RenderSystem.translatef(xs[index], ys[index] + 10 * buttonScale, 0);
         } else {
-            RenderSystem.translatef(xCenter, yCenter - 3, 0);
-            RenderSystem.scalef(0.75f, 0.75f, 0.75f);
-            drawCenteredString(font, name, 0, 0, textColor);
+            RenderSystem.translatef(xs[index], ys[index] - 3 * buttonScale, 0);
         }
+        float textScale = 0.75f * buttonScale;
+        RenderSystem.scalef(textScale, textScale, textScale);
+        drawCenteredString(font, name, 0, 0, textColor);
         RenderSystem.popMatrix();
     }
 
-    private void refreshName(int i) {
-        if (names[i] != null) {
+    /**
+     * Resolves the names and sprites of the slots again if the handler has
+     * been synced since the last frame, so steady frames allocate nothing.
+     */
+    private void refresh() {
+        if (presentedVersion == handler.version) {
             return;
         }
-        Cache cache = handler.caches[i];
-        if (cache == null) {
+        presentedVersion = handler.version;
+        for (int i = 0; i < names.length; i++) {
+            refreshName(i);
+            CoreSpec spec = handler.getSpec(i);
+            if (spec == null || spec.effect == null) {
+                sprites[i] = null;
+                continue;
+            }
+            TextureAtlasSprite sprite = minecraft.getPotionSpriteUploader().getSprite(spec.effect.getPotion());
+            sprites[i] = sprite;
+            uvs[i * 4] = sprite.getMinU();
+            uvs[i * 4 + 1] = sprite.getMaxU();
+            uvs[i * 4 + 2] = sprite.getMinV();
+            uvs[i * 4 + 3] = sprite.getMaxV();
+        }
+    }
+
+    private void refreshName(int i) {
+        CoreSpec spec = handler.getSpec(i);
+        if (spec == null) {
             if (i < handler.getSlots()) {
                 names[i] = "";
             } else {
                 names[i] = TextFormatting.GRAY + "Locked";
             }
-        } else if (cache.effect == null) {
+        } else if (spec.effect == null) {
             names[i] = I18n.format("effect.none");
         } else {
-            names[i] = I18n.format(cache.effect.getEffectName());
-            if (cache.effect.getAmplifier() > 0) {
-                names[i] += " " + I18n.format("potion.potency." + cache.effect.getAmplifier());
+            names[i] = I18n.format(spec.effect.getEffectName());
+            if (spec.effect.getAmplifier() > 0) {
+                names[i] += " " + I18n.format("potion.potency." + spec.effect.getAmplifier());
             }
         }
     }
@@ -337,7 +361,7 @@ public class UseScreen extends Screen {
         if (closing || handler.drinkIndex != -1) {
             return false;
         }
-        for (int i = 0; i < handler.getSlots(); i++) {
+        for (int i = 0; i < Math.min(handler.getSlots(), keyBindsHotbar.length); i++) {
             if (handler.canDrink(i) && keyBindsHotbar[i].getKey().getKeyCode() == key) {
                 scales[i] = 1;
                 handler.startDrinking(i);
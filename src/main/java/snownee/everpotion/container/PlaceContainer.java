@@ -7,6 +7,7 @@ import net.minecraft.inventory.container.Container;
 import net.minecraft.inventory.container.INamedContainerProvider;
 import net.minecraft.inventory.container.Slot;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.TranslationTextComponent;
 import snownee.everpotion.CoreModule;
@@ -17,7 +18,14 @@ import snownee.kiwi.inventory.InvHandlerWrapper;
 import snownee.kiwi.inventory.container.ModSlot;
 
 public class PlaceContainer extends Container {
+    public static final int ROW_SIZE = 9;
+
     private final EverHandler handler;
+    /**
+     * Slots the layout makes room for: the configured limit, which the server
+     * syncs to clients, or more if a command unlocked them.
+     */
+    private int layoutSlots = 1;
 
     public PlaceContainer(int id, PlayerInventory playerInventory) {
         super(CoreModule.MAIN, id);
@@ -28,21 +36,21 @@ public class PlaceContainer extends Container {
             return;
         }
         InvHandlerWrapper inventory = new InvHandlerWrapper(handler);
+        layoutSlots = MathHelper.clamp(Math.max(EverCommonConfig.maxSlots, handler.getSlots()), 1, EverHandler.MAX_SLOTS);
 
-        int xOffset = 2 - EverCommonConfig.maxSlots / 2;
-        int xStart = 44 + xOffset * 18;
         for (int j = 0; j < handler.getSlots(); ++j) {
-            this.addSlot(new ModSlot(inventory, j, xStart + j * 18, 20));
+            this.addSlot(new ModSlot(inventory, j, getSlotX(j), 20 + j / ROW_SIZE * 18));
         }
 
+        int extra = getExtraHeight();
         for (int l = 0; l < 3; ++l) {
             for (int k = 0; k < 9; ++k) {
-                this.addSlot(new Slot(playerInventory, k + l * 9 + 9, 8 + k * 18, l * 18 + 51));
+                this.addSlot(new Slot(playerInventory, k + l * 9 + 9, 8 + k * 18, l * 18 + 51 + extra));
             }
         }
 
         for (int i1 = 0; i1 < 9; ++i1) {
-            this.addSlot(new Slot(playerInventory, i1, 8 + i1 * 18, 109));
+            this.addSlot(new Slot(playerInventory, i1, 8 + i1 * 18, 109 + extra));
         }
 
     }
@@ -85,6 +93,39 @@ public class PlaceContainer extends Container {
         return handler.getSlots();
     }
 
+    /**
+     * Up to five slots keep the hopper layout, more are laid out in centered
+     * rows of nine.
+     */
+    public boolean isHopperLayout() {
+        return layoutSlots <= 5;
+    }
+
+    public int getRows() {
+        return isHopperLayout() ? 1 : (layoutSlots + ROW_SIZE - 1) / ROW_SIZE;
+    }
+
+    /**
+     * @return how much taller than the hopper the screen is
+     */
+    public int getExtraHeight() {
+        return (getRows() - 1) * 18;
+    }
+
+    public int getHopperOffset() {
+        return 2 - layoutSlots / 2;
+    }
+
+    public int getSlotX(int index) {
+        if (isHopperLayout()) {
+            int xOffset = getHopperOffset();
+            return 44 + (xOffset + index) * 18;
+        }
+        int row = index / ROW_SIZE;
+        int rowCount = Math.min(ROW_SIZE, layoutSlots - row * ROW_SIZE);
+        return 8 + (ROW_SIZE - rowCount) * 9 + index % ROW_SIZE * 18;
+    }
+
     @Override
     public boolean canInteractWith(PlayerEntity playerIn) {
         return playerIn.isAlive();
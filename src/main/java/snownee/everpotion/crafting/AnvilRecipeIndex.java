@@ -0,0 +1,102 @@
+package snownee.everpotion.crafting;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.potion.Potion;
+import net.minecraft.potion.PotionUtils;
+import net.minecraft.potion.Potions;
+
+/**
+ * Buckets anvil recipes by left item and potion, then by right item, so an
+ * anvil update only tests the recipes that can possibly match. Ingredients
+ * that do not name a potion are filed under {@link Potions#EMPTY} and tested
+ * for any potion.
+ */
+public class AnvilRecipeIndex {
+
+    private final Map<Item, Map<Potion, Map<Item, List<EverAnvilRecipe>>>> buckets = Maps.newHashMap();
+    /**
+     * Recipes whose ingredients list no stacks, always tested.
+     */
+    private final List<EverAnvilRecipe> fallback = Lists.newArrayList();
+    private final Reference2IntMap<EverAnvilRecipe> order = new Reference2IntOpenHashMap<>();
+
+    public AnvilRecipeIndex(Collection<? extends IRecipe<AnvilContext>> recipes) {
+        for (IRecipe<AnvilContext> r : recipes) {
+            if (!(r instanceof EverAnvilRecipe)) {
+                continue;
+            }
+            EverAnvilRecipe recipe = (EverAnvilRecipe) r;
+            order.put(recipe, order.size());
+            ItemStack[] lefts = recipe.getLeft().getMatchingStacks();
+            ItemStack[] rights = recipe.getRight().getMatchingStacks();
+            if (lefts.length == 0 || rights.length == 0) {
+                fallback.add(recipe);
+                continue;
+            }
+            for (ItemStack left : lefts) {
+                Map<Potion, Map<Item, List<EverAnvilRecipe>>> byPotion = buckets.computeIfAbsent(left.getItem(), k -> Maps.newHashMap());
+                Map<Item, List<EverAnvilRecipe>> byRight = byPotion.computeIfAbsent(PotionUtils.getPotionFromItem(left), k -> Maps.newHashMap());
+                for (ItemStack right : rights) {
+                    List<EverAnvilRecipe> list = byRight.computeIfAbsent(right.getItem(), k -> Lists.newArrayList());
+                    if (!list.contains(recipe)) {
+                        list.add(recipe);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the first matching recipe in datapack order, same as
+     *         {@code RecipeManager.getRecipe}
+     */
+    @Nullable
+    public EverAnvilRecipe find(AnvilContext ctx) {
+        EverAnvilRecipe found = null;
+        Map<Potion, Map<Item, List<EverAnvilRecipe>>> byPotion = buckets.get(ctx.left.getItem());
+        if (byPotion != null) {
+            Potion potion = PotionUtils.getPotionFromItem(ctx.left);
+            found = find(byPotion.get(potion), ctx, found);
+            if (potion != Potions.EMPTY) {
+                found = find(byPotion.get(Potions.EMPTY), ctx, found);
+            }
+        }
+        return find(fallback, ctx, found);
+    }
+
+    @Nullable
+    private EverAnvilRecipe find(@Nullable Map<Item, List<EverAnvilRecipe>> byRight, AnvilContext ctx, @Nullable EverAnvilRecipe found) {
+        return byRight == null ? found : find(byRight.get(ctx.right.getItem()), ctx, found);
+    }
+
+    @Nullable
+    private EverAnvilRecipe find(@Nullable List<EverAnvilRecipe> candidates, AnvilContext ctx, @Nullable EverAnvilRecipe found) {
+        if (candidates == null) {
+            return found;
+        }
+        // candidates are in datapack order, nothing after the current match can win
+        for (EverAnvilRecipe recipe : candidates) {
+            if (found != null && order.getInt(recipe) >= order.getInt(found)) {
+                break;
+            }
+            if (recipe.matches(ctx, null)) {
+                return recipe;
+            }
+        }
+        return found;
+    }
+
+}
@@ -0,0 +1,95 @@
+package snownee.everpotion.crafting;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.item.crafting.RecipeManager;
+import net.minecraft.util.ResourceLocation;
+import snownee.everpotion.CoreModule;
+import snownee.everpotion.item.CoreSpec;
+
+/**
+ * Every distinct core the anvil recipes can make, sorted by effect and type.
+ * The server builds it once per datapack reload and sends it to clients with
+ * {@link snownee.everpotion.network.SCoreCatalogPacket}, the creative tab and
+ * the search tree read the copy the client received.
+ */
+public final class CoreCatalog {
+
+    private static final Comparator<CoreSpec> ORDER = Comparator.comparing(CoreCatalog::effectName).thenComparing(spec -> spec.type);
+
+    private static List<ItemStack> server = Collections.emptyList();
+    private static Map<ResourceLocation, IRecipe<AnvilContext>> builtFrom;
+    private static List<ItemStack> client = Collections.emptyList();
+
+    private CoreCatalog() {}
+
+    private static String effectName(CoreSpec spec) {
+        return spec.potion == null ? "" : String.valueOf(spec.potion.getRegistryName());
+    }
+
+    /**
+     * Rebuilds the server catalog if the recipes have been reloaded.
+     *
+     * @return whether the catalog changed
+     */
+    public static boolean update(RecipeManager manager) {
+        Map<ResourceLocation, IRecipe<AnvilContext>> recipes = manager.getRecipes(CraftingModule.RECIPE_TYPE);
+        if (recipes == builtFrom) {
+            return false;
+        }
+        builtFrom = recipes;
+        server = build(recipes.values());
+        return true;
+    }
+
+    public static List<ItemStack> build(Iterable<IRecipe<AnvilContext>> recipes) {
+        Set<CoreSpec> seen = Sets.newHashSet();
+        List<ItemStack> stacks = Lists.newArrayList();
+        for (IRecipe<AnvilContext> recipe : recipes) {
+            ItemStack output = recipe.getRecipeOutput();
+            if (output.getItem() == CoreModule.CORE && seen.add(CoreSpec.of(output))) {
+                stacks.add(output.copy());
+            }
+        }
+        stacks.sort(Comparator.comparing(CoreSpec::of, ORDER));
+        return ImmutableList.copyOf(stacks);
+    }
+
+    public static List<ItemStack> getServer() {
+        return server;
+    }
+
+    public static void clearServer() {
+        server = Collections.emptyList();
+        builtFrom = null;
+    }
+
+    /**
+     * Do not modify the stacks, copy them first.
+     */
+    public static List<ItemStack> getClient() {
+        return client;
+    }
+
+    /**
+     * @return whether the received catalog differs from the previous one
+     */
+    public static boolean setClient(List<ItemStack> stacks) {
+        boolean changed = stacks.size() != client.size();
+        for (int i = 0; !changed && i < stacks.size(); i++) {
+            changed = CoreSpec.of(stacks.get(i)) != CoreSpec.of(client.get(i));
+        }
+        client = ImmutableList.copyOf(stacks);
+        return changed;
+    }
+}
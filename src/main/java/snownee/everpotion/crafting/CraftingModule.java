@@ -1,16 +1,26 @@
 package snownee.everpotion.crafting;
 
-import java.util.Optional;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.crafting.IRecipe;
 import net.minecraft.item.crafting.IRecipeSerializer;
 import net.minecraft.item.crafting.IRecipeType;
+import net.minecraft.item.crafting.RecipeManager;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.event.AnvilUpdateEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
 import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
+import snownee.everpotion.metrics.Metrics;
+import snownee.everpotion.network.SCoreCatalogPacket;
 import snownee.kiwi.AbstractModule;
 import snownee.kiwi.KiwiModule;
 import snownee.kiwi.Name;
@@ -28,6 +38,13 @@ public class CraftingModule extends AbstractModule {
 
     public static MinecraftServer SERVER;
 
+    /**
+     * AnvilUpdateEvent fires on both the client and the integrated server
+     * thread, so the index and the map it was built from are published
+     * together.
+     */
+    private static volatile IndexedRecipes index;
+
     public CraftingModule() {
         IEventBus modEventBus = FMLJavaModLoadingContext.get().getModEventBus();
         modEventBus.addListener(this::serverStopped);
@@ -40,6 +57,56 @@ public class CraftingModule extends AbstractModule {
 
     protected void serverStopped(FMLServerStoppedEvent event) {
         SERVER = null;
+        index = null;
+        CoreCatalog.clearServer();
+    }
+
+    @SubscribeEvent
+    public void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        if (SERVER == null || !(event.getPlayer() instanceof ServerPlayerEntity)) {
+            return;
+        }
+        if (CoreCatalog.update(SERVER.getRecipeManager())) {
+            sendCatalog(SERVER.getPlayerList().getPlayers());
+        } else {
+            sendCatalog(Collections.singletonList((ServerPlayerEntity) event.getPlayer()));
+        }
+    }
+
+    /**
+     * Notices datapack reloads by the identity of the recipe map, which is
+     * replaced on every reload.
+     */
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && SERVER != null && CoreCatalog.update(SERVER.getRecipeManager())) {
+            sendCatalog(SERVER.getPlayerList().getPlayers());
+        }
+    }
+
+    private static void sendCatalog(List<ServerPlayerEntity> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+        SCoreCatalogPacket packet = new SCoreCatalogPacket(CoreCatalog.getServer());
+        for (ServerPlayerEntity player : players) {
+            packet.send(player);
+        }
+    }
+
+    /**
+     * The recipe map is replaced on every datapack reload, so the index is
+     * rebuilt lazily whenever it no longer belongs to the current map.
+     */
+    public static AnvilRecipeIndex getIndex(RecipeManager manager) {
+        Map<ResourceLocation, IRecipe<AnvilContext>> recipes = manager.getRecipes(RECIPE_TYPE);
+        IndexedRecipes indexed = index;
+        if (indexed == null || indexed.recipes != recipes) {
+            // two threads may both build it, either result is correct
+            indexed = new IndexedRecipes(recipes, new AnvilRecipeIndex(recipes.values()));
+            index = indexed;
+        }
+        return indexed.index;
     }
 
     @SubscribeEvent
@@ -48,12 +115,24 @@ public class CraftingModule extends AbstractModule {
             return;
         }
         AnvilContext ctx = new AnvilContext(event);
-        Optional<EverAnvilRecipe> result = SERVER.getRecipeManager().getRecipe(RECIPE_TYPE, ctx, null);
-        result.ifPresent(recipe -> {
+        long start = System.nanoTime();
+        EverAnvilRecipe recipe = getIndex(SERVER.getRecipeManager()).find(ctx);
+        Metrics.ANVIL_LOOKUP.record(System.nanoTime() - start);
+        if (recipe != null) {
             event.setOutput(recipe.getCraftingResult(ctx));
             event.setCost(ctx.cost);
             event.setMaterialCost(ctx.materialCost);
-        });
+        }
+    }
+
+    private static final class IndexedRecipes {
+        private final Map<ResourceLocation, IRecipe<AnvilContext>> recipes;
+        private final AnvilRecipeIndex index;
+
+        private IndexedRecipes(Map<ResourceLocation, IRecipe<AnvilContext>> recipes, AnvilRecipeIndex index) {
+            this.recipes = recipes;
+            this.index = index;
+        }
     }
 
 }
@@ -0,0 +1,133 @@
+package snownee.everpotion.handler;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import net.minecraft.entity.AreaEffectCloudEntity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.potion.Effect;
+import net.minecraft.potion.EffectInstance;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.dimension.DimensionType;
+import snownee.everpotion.metrics.Metrics;
+
+/**
+ * Keeps track of the clouds released by lingering cores. A release inside a
+ * cloud of the same effect, amplifier and duration, owned by the same entity or a teammate, grows
+ * that cloud instead of spawning another one, so chain drinking in one spot
+ * keeps a single entity. Only used from the server thread.
+ */
+public final class CloudManager {
+
+    public static final float RADIUS = 3;
+    public static final float MAX_RADIUS = 6;
+    public static final int DURATION = 600;
+    public static final int MAX_DURATION = 1200;
+    public static final int WAIT_TIME = 10;
+
+    private static final Map<DimensionType, List<Entry>> CLOUDS = Maps.newHashMap();
+
+    private CloudManager() {}
+
+    public static void release(LivingEntity owner, @Nullable EffectInstance effect) {
+        World world = owner.world;
+        List<Entry> clouds = CLOUDS.computeIfAbsent(world.getDimension().getType(), k -> Lists.newArrayList());
+        Entry target = null;
+        Iterator<Entry> itr = clouds.iterator();
+        while (itr.hasNext()) {
+            Entry entry = itr.next();
+            if (!entry.cloud.isAlive() || entry.cloud.world != world) {
+                itr.remove();
+            } else if (target == null && entry.canMerge(owner, effect)) {
+                target = entry;
+            }
+        }
+        if (target != null) {
+            target.grow();
+            Metrics.CLOUDS_MERGED.inc();
+            return;
+        }
+        // PotionEntity.makeAreaOfEffectCloud
+        AreaEffectCloudEntity areaeffectcloudentity = new AreaEffectCloudEntity(world, owner.getPosX(), owner.getPosY(), owner.getPosZ());
+        areaeffectcloudentity.setOwner(owner);
+        areaeffectcloudentity.setRadius(RADIUS);
+        areaeffectcloudentity.setRadiusOnUse(-0.5F);
+        areaeffectcloudentity.setWaitTime(WAIT_TIME);
+        areaeffectcloudentity.setDuration(DURATION);
+        areaeffectcloudentity.setRadiusPerTick(-areaeffectcloudentity.getRadius() / areaeffectcloudentity.getDuration());
+        if (effect != null) {
+            areaeffectcloudentity.addEffect(new EffectInstance(effect));
+        }
+        if (world.addEntity(areaeffectcloudentity)) {
+            clouds.add(new Entry(areaeffectcloudentity, owner.getUniqueID(), effect));
+            Metrics.CLOUDS_SPAWNED.inc();
+        }
+    }
+
+    public static int size() {
+        int size = 0;
+        for (List<Entry> clouds : CLOUDS.values()) {
+            size += clouds.size();
+        }
+        return size;
+    }
+
+    public static void clear() {
+        CLOUDS.clear();
+    }
+
+    private static final class Entry {
+        private final AreaEffectCloudEntity cloud;
+        private final UUID ownerId;
+        @Nullable
+        private final Effect potion;
+        private final int amplifier;
+        private final int duration;
+
+        private Entry(AreaEffectCloudEntity cloud, UUID ownerId, @Nullable EffectInstance effect) {
+            this.cloud = cloud;
+            this.ownerId = ownerId;
+            potion = effect == null ? null : effect.getPotion();
+            amplifier = effect == null ? 0 : effect.getAmplifier();
+            duration = effect == null ? 0 : effect.getDuration();
+        }
+
+        private boolean canMerge(LivingEntity owner, @Nullable EffectInstance effect) {
+            if (effect == null ? potion != null : potion != effect.getPotion() || amplifier != effect.getAmplifier() || duration != effect.getDuration()) {
+                return false;
+            }
+            float radius = cloud.getRadius();
+            if (cloud.getDistanceSq(owner) > radius * radius) {
+                return false;
+            }
+            if (ownerId.equals(owner.getUniqueID())) {
+                return true;
+            }
+            LivingEntity cloudOwner = cloud.getOwner();
+            return cloudOwner != null && owner.isOnSameTeam(cloudOwner);
+        }
+
+        /**
+         * Adds the area and the lifetime of a fresh cloud, then shrinks the
+         * result to nothing over its new lifetime like a fresh cloud does.
+         */
+        private void grow() {
+            float radius = cloud.getRadius();
+            radius = Math.min(MAX_RADIUS, MathHelper.sqrt(radius * radius + RADIUS * RADIUS));
+            int remaining = Math.max(0, WAIT_TIME + cloud.getDuration() - cloud.ticksExisted);
+            remaining = Math.min(MAX_DURATION, remaining + DURATION);
+            cloud.setRadius(radius);
+            cloud.setDuration(cloud.ticksExisted + remaining - WAIT_TIME);
+            cloud.setRadiusPerTick(-radius / remaining);
+        }
+    }
+
+}
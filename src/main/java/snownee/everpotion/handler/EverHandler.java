@@ -1,55 +1,169 @@
 package snownee.everpotion.handler;
 
+import java.util.Arrays;
 import java.util.List;
 
 import javax.annotation.Nullable;
 
-import net.minecraft.block.Block;
-import net.minecraft.block.BlockState;
-import net.minecraft.block.Blocks;
-import net.minecraft.block.CampfireBlock;
-import net.minecraft.client.renderer.Vector3f;
-import net.minecraft.entity.AreaEffectCloudEntity;
+import com.google.common.collect.Lists;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.entity.projectile.PotionEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.StringNBT;
 import net.minecraft.potion.Effect;
 import net.minecraft.potion.EffectInstance;
 import net.minecraft.util.DamageSource;
-import net.minecraft.util.Direction;
-import net.minecraft.util.math.AxisAlignedBB;
-import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.NonNullList;
+import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.MathHelper;
-import net.minecraft.world.World;
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.items.ItemStackHandler;
+import net.minecraftforge.registries.ForgeRegistries;
 import snownee.everpotion.CoreModule;
 import snownee.everpotion.EverCommonConfig;
+import snownee.everpotion.EverPotion;
 import snownee.everpotion.PotionType;
-import snownee.everpotion.item.CoreItem;
+import snownee.everpotion.item.CoreSpec;
+import snownee.everpotion.metrics.Metrics;
 import snownee.everpotion.network.CDrinkPacket;
-import snownee.kiwi.util.MathUtil;
 import snownee.kiwi.util.NBTHelper;
 
 public class EverHandler extends ItemStackHandler {
 
+    public static final int DIRTY_SLOTS = 1;
+    /**
+     * Anchor time, charge index, acceleration and drink state. Progress of the
+     * charging slot is always sent along with it.
+     */
+    public static final int DIRTY_ANCHOR = 2;
+    public static final int DIRTY_ALL = DIRTY_SLOTS | DIRTY_ANCHOR;
+
+    private static final float ACCELERATION_DECAY = 0.005f;
+    private static final SplashEngine SPLASH = new SplashEngine();
+
+    /**
+     * Version of the layout written by {@link #serializeNBT()}. Tags without
+     * a version are read as the plain ItemStackHandler layout.
+     */
+    public static final int FORMAT = 1;
+    private static final int STRIDE = 6;
+    private static final int STORED_KIND = 3;
+    private static final int STORED_CORE = 1;
+    private static final int STORED_STACK = 2;
+    private static final int STORED_AMBIENT = 16;
+    private static final int STORED_PARTICLES = 32;
+    private static final int STORED_ICON = 64;
+
     private PlayerEntity owner;
     private int slots;
-    public final Cache[] caches = new Cache[4];
+    /**
+     * Slot storage is only allocated once the first slot is unlocked, until
+     * then every handler shares these empty instances.
+     */
+    private static final NonNullList<ItemStack> NO_STACKS = NonNullList.withSize(0, ItemStack.EMPTY);
+    private static final CoreSpec[] NO_SPECS = new CoreSpec[0];
+    private static final float[] NO_FLOATS = new float[0];
+    private static final int[] NO_INTS = new int[0];
+    private static final byte[] NO_BYTES = new byte[0];
+    public static final int CAPACITY = 4;
+    /**
+     * Most slots a handler can unlock. Dirty flags and the charge queue keep
+     * one bit per slot.
+     */
+    public static final int MAX_SLOTS = 16;
+    /**
+     * Effect id of a core without an effect, kept in the last bit of
+     * {@link #effectMask}.
+     */
+    private static final int NO_EFFECT = -1;
+
+    /*
+     * Slot state as parallel arrays, a slot without a core has a null spec.
+     * The stacks of the ItemStackHandler are only kept for containers and
+     * serialization.
+     */
+    private CoreSpec[] specs = NO_SPECS;
+    /**
+     * Progress of each slot at the anchor time, use {@link #getProgress(int)}
+     * for the current value.
+     */
+    private float[] progress = NO_FLOATS;
+    private float[] speed = NO_FLOATS;
+    private int[] effectId = NO_INTS;
+    private byte[] type = NO_BYTES;
+    /**
+     * One bit for each effect id below 63 held by a slot and the last bit for
+     * cores without an effect. Larger ids are found by scanning
+     * {@link #effectId}.
+     */
+    private long effectMask;
+    /**
+     * One bit for each slot holding a core that is not full. The lowest bit
+     * is the next slot to charge.
+     */
+    private int unfilled;
+    /**
+     * Refill time {@link #unfilled} was built against, the mask is rebuilt
+     * when the config changes it.
+     */
+    private int unfilledRefillTime;
+    /**
+     * Stored rows whose effect is not registered, for example because the mod
+     * adding it was removed. The slot stays empty and the row is written back
+     * as it was, until something else is put into the slot.
+     */
+    private final Int2ObjectMap<MissingRow> missing = new Int2ObjectArrayMap<>(0);
     public int chargeIndex = -1;
     public int drinkIndex = -1;
     public int drinkTick;
-    public float acceleration;
+    private float acceleration;
+
+    /**
+     * Incremented each time a delta is sent on the server side. On the client
+     * side it is the last version applied, or -1 before the first snapshot.
+     */
+    public int version;
+    /**
+     * Server tick at which the last full snapshot the client asked for is
+     * sent, used to rate limit {@link snownee.everpotion.network.CRequestSyncPacket}.
+     */
+    public long lastSyncRequest = Long.MIN_VALUE;
+    private int dirtyStacks;
+    private int dirtyProgress;
+    private int dirtyFlags;
+
+    /**
+     * Game time at which charge progress, acceleration and drink tick are valid.
+     */
+    private long anchorTime = -1;
+    private boolean updating;
+    private boolean active;
+    private final TimerWheel.Timer timer = new TimerWheel.Timer() {
+
+        @Override
+        protected void fire() {
+            Metrics.HANDLER_UPDATES.inc();
+            update();
+        }
+    };
 
     public EverHandler() {
         this(null);
     }
 
     public EverHandler(PlayerEntity owner) {
-        super(4);
+        super(NO_STACKS);
         this.owner = owner;
+        if (owner != null && owner.world.isRemote) {
+            version = -1;
+        }
     }
 
     @Override
@@ -60,63 +174,383 @@ public class EverHandler extends ItemStackHandler {
     @Override
     protected void onContentsChanged(int slot) {
         ItemStack stack = getStackInSlot(slot);
+        if (!stack.isEmpty() && !missing.isEmpty()) {
+            missing.remove(slot);
+        }
         if (stack.getItem() == CoreModule.CORE) {
-            if (caches[slot] != null && caches[slot].matches(stack)) {
+            CoreSpec spec = CoreSpec.of(stack);
+            if (specs[slot] == spec) {
                 return;
             }
-            caches[slot] = new Cache(stack);
+            rebase();
+            setCore(slot, spec);
         } else {
-            caches[slot] = null;
+            rebase();
+            setCore(slot, null);
         }
+        markSlotDirty(slot);
         if (chargeIndex == -1 || slot == chargeIndex) {
             updateCharge();
         }
+        schedule();
     }
 
-    private void updateCharge() {
-        for (int i = 0; i < caches.length; i++) {
-            if (caches[i] == null) {
-                continue;
+    private void setCore(int slot, @Nullable CoreSpec spec) {
+        specs[slot] = spec;
+        progress[slot] = 0;
+        speed[slot] = spec == null ? 0 : spec.charge;
+        effectId[slot] = spec == null || spec.potion == null ? NO_EFFECT : Effect.getId(spec.potion);
+        type[slot] = spec == null ? 0 : (byte) spec.type.ordinal();
+        updateUnfilled(slot);
+        effectMask = 0;
+        for (int i = 0; i < specs.length; i++) {
+            if (specs[i] != null) {
+                effectMask |= effectBit(effectId[i]);
             }
-            if (caches[i].progress < EverCommonConfig.refillTime) {
-                chargeIndex = i;
-                return;
+        }
+    }
+
+    private static long effectBit(int id) {
+        if (id == NO_EFFECT) {
+            return 1L << 63;
+        }
+        return id >= 0 && id < 63 ? 1L << id : 0;
+    }
+
+    /**
+     * @param potion null for cores without an effect
+     */
+    public boolean containsEffect(@Nullable Effect potion) {
+        int id = potion == null ? NO_EFFECT : Effect.getId(potion);
+        long bit = effectBit(id);
+        if (bit != 0) {
+            return (effectMask & bit) != 0;
+        }
+        for (int i = 0; i < specs.length; i++) {
+            if (specs[i] != null && effectId[i] == id) {
+                return true;
             }
         }
-        chargeIndex = -1;
+        return false;
+    }
+
+    private void updateUnfilled(int slot) {
+        if (specs[slot] != null && progress[slot] < EverCommonConfig.refillTime) {
+            unfilled |= 1 << slot;
+        } else {
+            unfilled &= ~(1 << slot);
+        }
+    }
+
+    /**
+     * @return progress of the slot at the anchor time
+     */
+    public float getAnchorProgress(int slot) {
+        return progress[slot];
+    }
+
+    /**
+     * Sets the progress at the anchor time, for handlers that adopt the state
+     * of another one.
+     */
+    public void setAnchorProgress(int slot, float value) {
+        progress[slot] = value;
+        updateUnfilled(slot);
+    }
+
+    private void updateCharge() {
+        int prevIndex = chargeIndex;
+        if (unfilledRefillTime != EverCommonConfig.refillTime) {
+            unfilledRefillTime = EverCommonConfig.refillTime;
+            for (int i = 0; i < specs.length; i++) {
+                updateUnfilled(i);
+            }
+        }
+        chargeIndex = unfilled == 0 ? -1 : Integer.numberOfTrailingZeros(unfilled);
+        if (chargeIndex != prevIndex) {
+            dirtyFlags |= DIRTY_ANCHOR;
+        }
+    }
+
+    public void markSlotDirty(int slot) {
+        dirtyStacks |= 1 << slot;
+        dirtyProgress |= 1 << slot;
+    }
+
+    public void markDirty(int flags) {
+        dirtyFlags |= flags;
+    }
+
+    public void markAllDirty() {
+        dirtyStacks = dirtyProgress = (1 << specs.length) - 1;
+        dirtyFlags = DIRTY_ALL;
+    }
+
+    public boolean isDirty() {
+        return (dirtyStacks | dirtyProgress | dirtyFlags) != 0;
+    }
+
+    public int getDirtyStacks() {
+        return dirtyStacks;
+    }
+
+    public int getDirtyProgress() {
+        return dirtyProgress;
+    }
+
+    public int getDirtyFlags() {
+        return dirtyFlags;
+    }
+
+    public void clearDirty() {
+        dirtyStacks = dirtyProgress = dirtyFlags = 0;
     }
 
     @Override
     public CompoundNBT serializeNBT() {
-        CompoundNBT tag = super.serializeNBT();
+        update();
+        return write();
+    }
+
+    private CompoundNBT write() {
+        CompoundNBT tag = new CompoundNBT();
+        tag.putByte("Version", (byte) FORMAT);
         tag.putInt("Slots", slots);
-        for (int i = 0; i < caches.length; i++) {
-            if (caches[i] == null) {
+        int[] data = new int[stacks.size() * STRIDE];
+        List<String> palette = Lists.newArrayList();
+        ListNBT raw = new ListNBT();
+        for (int i = 0; i < stacks.size(); i++) {
+            ItemStack stack = stacks.get(i);
+            int offset = i * STRIDE;
+            if (stack.isEmpty()) {
+                MissingRow row = missing.get(i);
+                if (row != null) {
+                    System.arraycopy(row.data, 0, data, offset, STRIDE);
+                    data[offset + 1] = paletteIndex(palette, row.effect) + 1;
+                }
                 continue;
             }
-            tag.putFloat("Progress" + i, caches[i].progress);
+            if (CoreSpec.isCanonical(stack)) {
+                CoreSpec spec = specs[i];
+                int flags = STORED_CORE | type[i] << 2;
+                if (spec.effect != null) {
+                    data[offset + 1] = paletteIndex(palette, spec.potion.getRegistryName().toString()) + 1;
+                    data[offset + 2] = spec.duration;
+                    data[offset + 3] = spec.amplifier;
+                    flags |= spec.effect.isAmbient() ? STORED_AMBIENT : 0;
+                    flags |= spec.effect.doesShowParticles() ? STORED_PARTICLES : 0;
+                    flags |= spec.effect.isShowIcon() ? STORED_ICON : 0;
+                }
+                data[offset] = flags;
+                data[offset + 4] = spec.getChargeHundredths();
+            } else {
+                data[offset] = STORED_STACK;
+                CompoundNBT stackTag = stack.write(new CompoundNBT());
+                stackTag.putByte("Slot", (byte) i);
+                raw.add(stackTag);
+            }
+            if (specs[i] != null) {
+                data[offset + 5] = Float.floatToIntBits(getProgress(i));
+            }
+        }
+        tag.putIntArray("Data", data);
+        if (!palette.isEmpty()) {
+            ListNBT paletteTag = new ListNBT();
+            for (String name : palette) {
+                paletteTag.add(StringNBT.valueOf(name));
+            }
+            tag.put("Palette", paletteTag);
+        }
+        if (!raw.isEmpty()) {
+            tag.put("Stacks", raw);
         }
         return tag;
     }
 
+    private static int paletteIndex(List<String> palette, String name) {
+        int index = palette.indexOf(name);
+        if (index == -1) {
+            index = palette.size();
+            palette.add(name);
+        }
+        return index;
+    }
+
     @Override
     public void deserializeNBT(CompoundNBT nbt) {
+        if (nbt.contains("Version")) {
+            read(nbt);
+        } else {
+            readLegacy(nbt);
+            verifyMigration();
+        }
+        updateCharge();
+        markAllDirty();
+        schedule();
+    }
+
+    /**
+     * Reads the layout of {@link #FORMAT}: one row of {@link #STRIDE} ints per
+     * slot in "Data" holding the stored kind, type and effect flags, the index
+     * into "Palette" plus one, duration, amplifier, charge modifier in
+     * hundredths and the progress bits. Stacks that are not plain cores are
+     * kept in "Stacks".
+     */
+    private void read(CompoundNBT nbt) {
+        slots = MathHelper.clamp(nbt.getInt("Slots"), 0, MAX_SLOTS);
+        int[] data = nbt.getIntArray("Data");
+        ListNBT palette = nbt.getList("Palette", Constants.NBT.TAG_STRING);
+        ListNBT raw = nbt.getList("Stacks", Constants.NBT.TAG_COMPOUND);
+        missing.clear();
+        boolean used = slots > 0;
+        for (int i = 0; i < data.length && !used; i += STRIDE) {
+            used = data[i] != 0;
+        }
+        if (used) {
+            ensureCapacity(Math.max(CAPACITY, Math.max(slots, Math.min(MAX_SLOTS, data.length / STRIDE))));
+        }
+        int size = Math.min(stacks.size(), data.length / STRIDE);
+        for (int i = 0; i < stacks.size(); i++) {
+            stacks.set(i, ItemStack.EMPTY);
+        }
+        for (int i = 0; i < raw.size(); i++) {
+            CompoundNBT stackTag = raw.getCompound(i);
+            int slot = stackTag.getByte("Slot");
+            if (slot >= 0 && slot < stacks.size()) {
+                stacks.set(slot, ItemStack.read(stackTag));
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int offset = i * STRIDE;
+            int flags = data[offset];
+            if ((flags & STORED_KIND) != STORED_CORE) {
+                continue;
+            }
+            EffectInstance effect = null;
+            if (data[offset + 1] > 0) {
+                String name = palette.getString(data[offset + 1] - 1);
+                Effect potion = ForgeRegistries.POTIONS.getValue(new ResourceLocation(name));
+                if (potion == null) {
+                    missing.put(i, new MissingRow(name, Arrays.copyOfRange(data, offset, offset + STRIDE)));
+                    continue;
+                }
+                effect = new EffectInstance(potion, data[offset + 2], data[offset + 3], (flags & STORED_AMBIENT) != 0, (flags & STORED_PARTICLES) != 0, (flags & STORED_ICON) != 0);
+            }
+            stacks.set(i, CoreModule.CORE.make(effect, PotionType.valueOf((byte) (flags >> 2 & 3)), data[offset + 4] / 100F));
+        }
+        for (int i = 0; i < stacks.size(); i++) {
+            onContentsChanged(i);
+        }
+        for (int i = 0; i < size; i++) {
+            if (specs[i] != null) {
+                setAnchorProgress(i, Float.intBitsToFloat(data[i * STRIDE + 5]));
+            }
+        }
+    }
+
+    /**
+     * Reads the ItemStackHandler layout with "Progress0".."Progress3" that was
+     * saved before {@link #FORMAT} existed.
+     */
+    private void readLegacy(CompoundNBT nbt) {
+        missing.clear();
         NBTHelper data = NBTHelper.of(nbt);
         slots = data.getInt("Slots", EverCommonConfig.beginnerSlots);
         super.deserializeNBT(nbt);
-        for (int i = 0; i < slots; i++) {
+        for (int i = 0; i < stacks.size(); i++) {
             onContentsChanged(i);
         }
-        for (int i = 0; i < caches.length; i++) {
-            if (caches[i] == null) {
-                continue;
+        for (int i = 0; i < specs.length; i++) {
+            if (specs[i] != null) {
+                setAnchorProgress(i, data.getFloat("Progress" + i));
+            }
+        }
+    }
+
+    /**
+     * Reads the converted state back from the new layout and logs every slot
+     * that does not survive the round trip, so a broken conversion shows up
+     * once per player instead of as a lost core.
+     */
+    private void verifyMigration() {
+        EverHandler copy = new EverHandler();
+        copy.deserializeNBT(write());
+        if (copy.slots != slots) {
+            EverPotion.LOGGER.warn("Slot count changed from {} to {} when converting to format {}", slots, copy.slots, FORMAT);
+        }
+        for (int i = 0; i < stacks.size(); i++) {
+            ItemStack stack = stacks.get(i);
+            ItemStack converted = i < copy.stacks.size() ? copy.stacks.get(i) : ItemStack.EMPTY;
+            boolean same = ItemStack.areItemStacksEqual(stack, converted);
+            if (same && specs[i] != null) {
+                same = Float.compare(getProgress(i), copy.progress[i]) == 0;
+            }
+            if (!same) {
+                EverPotion.LOGGER.warn("Slot {} changed from {} to {} when converting to format {}", i, stack.write(new CompoundNBT()), converted.write(new CompoundNBT()), FORMAT);
             }
-            this.caches[i].progress = data.getFloat("Progress" + i);
         }
     }
 
     public void setSlots(int slots) {
+        slots = MathHelper.clamp(slots, 0, MAX_SLOTS);
+        if (this.slots != slots) {
+            dirtyFlags |= DIRTY_SLOTS;
+        }
         this.slots = slots;
+        if (slots > 0) {
+            ensureCapacity(Math.max(CAPACITY, slots));
+        }
+    }
+
+    /**
+     * Grows the slot storage, keeping the current stacks.
+     */
+    public void ensureCapacity(int size) {
+        if (stacks.size() >= size) {
+            return;
+        }
+        NonNullList<ItemStack> newStacks = NonNullList.withSize(size, ItemStack.EMPTY);
+        for (int i = 0; i < stacks.size(); i++) {
+            newStacks.set(i, stacks.get(i));
+        }
+        stacks = newStacks;
+        specs = Arrays.copyOf(specs, size);
+        progress = Arrays.copyOf(progress, size);
+        speed = Arrays.copyOf(speed, size);
+        effectId = Arrays.copyOf(effectId, size);
+        type = Arrays.copyOf(type, size);
+    }
+
+    @Override
+    public void setSize(int size) {
+        super.setSize(size);
+        allocate(size);
+    }
+
+    private void allocate(int size) {
+        specs = new CoreSpec[size];
+        progress = new float[size];
+        speed = new float[size];
+        effectId = new int[size];
+        type = new byte[size];
+        effectMask = 0;
+        unfilled = 0;
+    }
+
+    /**
+     * @return number of slots with storage, which may exceed {@link #getSlots()}
+     */
+    public int getCapacity() {
+        return specs.length;
+    }
+
+    /**
+     * @return the core in the slot, or null if there is none or the slot has
+     *         no storage yet
+     */
+    @Nullable
+    public CoreSpec getSpec(int slot) {
+        return slot >= 0 && slot < specs.length ? specs[slot] : null;
     }
 
     @Override
@@ -124,115 +558,368 @@ public class EverHandler extends ItemStackHandler {
         if (stack.getItem() != CoreModule.CORE || slot >= slots) {
             return false;
         }
-        Effect effect = CoreItem.getEffect(stack);
-        for (ItemStack stackIn : stacks) {
-            if (!stackIn.isEmpty() && stackIn.getItem() == CoreModule.CORE && CoreItem.getEffect(stackIn) == effect) {
-                return false;
-            }
-        }
-        return true;
+        return !containsEffect(CoreSpec.of(stack).potion);
     }
 
     public void copyFrom(EverHandler that) {
+        that.update();
         this.setSlots(that.getSlots());
         this.stacks = that.stacks;
-        for (int i = 0; i < caches.length; i++) {
+        if (specs.length != that.specs.length) {
+            allocate(that.specs.length);
+        }
+        for (int i = 0; i < specs.length; i++) {
             onContentsChanged(i);
-            if (caches[i] != null && that.caches[i] != null) {
-                this.caches[i].progress = that.caches[i].progress;
+            if (specs[i] != null && that.specs[i] != null) {
+                setAnchorProgress(i, that.getProgress(i));
             }
         }
+        missing.clear();
+        missing.putAll(that.missing);
         this.chargeIndex = that.chargeIndex;
-        this.acceleration = that.acceleration;
+        this.acceleration = that.getAcceleration();
+        markAllDirty();
+        schedule();
+    }
+
+    /**
+     * @return whether the handler belongs to a live owner and keeps its state
+     *         moving
+     */
+    protected boolean isAttached() {
+        return owner != null;
+    }
+
+    protected boolean isRemote() {
+        return owner.world.isRemote;
+    }
+
+    protected boolean isRemoved() {
+        return owner.removed;
+    }
+
+    protected long now() {
+        return owner.world.getGameTime();
     }
 
-    public void tick() {
-        acceleration = Math.max(0, acceleration - 0.005f);
+    protected TimerWheel getScheduler() {
+        return CoreModule.SCHEDULER;
+    }
+
+    /**
+     * Processes the drink and charge completions that are due. Charge progress
+     * and acceleration are only re-anchored at these events or when the state
+     * is changed, reads evaluate them in closed form. On the server side the
+     * next event is scheduled on {@link #getScheduler()}.
+     */
+    public void update() {
+        if (!isAttached() || updating) {
+            return;
+        }
+        long now = now();
+        if (anchorTime == -1) {
+            anchorTime = now;
+        }
+        updating = true;
+        long delay;
+        while ((delay = nextEventDelay()) > 0 && anchorTime + delay <= now) {
+            advance(delay);
+        }
+        updating = false;
+        schedule();
+    }
+
+    /**
+     * Moves the anchor to the current game time. Must be called before the
+     * charge, drink or acceleration state is changed.
+     */
+    private void rebase() {
+        if (!isAttached() || updating) {
+            return;
+        }
+        update();
+        long now = now();
+        if (now > anchorTime) {
+            updating = true;
+            advance(now - anchorTime);
+            updating = false;
+        }
+        dirtyFlags |= DIRTY_ANCHOR;
+    }
+
+    private void schedule() {
+        if (!isAttached() || isRemote() || updating) {
+            return;
+        }
+        boolean removed = isRemoved();
+        long delay = removed ? 0 : nextEventDelay();
+        if (delay > 0) {
+            getScheduler().schedule(timer, (int) Math.min(Integer.MAX_VALUE, anchorTime + delay - now()));
+        } else {
+            getScheduler().cancel(timer);
+        }
+        setActive(!removed && (drinkIndex != -1 || getAcceleration() > 0 || canChargeNaturally()));
+    }
+
+    /**
+     * @return whether the charging slot progresses without acceleration
+     */
+    private boolean canChargeNaturally() {
+        return chargeIndex != -1 && EverCommonConfig.naturallyRefill && speed[chargeIndex] > 0;
+    }
+
+    /**
+     * @return ticks after the anchor until the drink finishes, the charge
+     *         completes or the acceleration runs out, or 0 if nothing is going
+     *         to happen
+     */
+    private long nextEventDelay() {
+        long delay = Long.MAX_VALUE;
+        if (drinkIndex != -1) {
+            delay = Math.max(1, EverCommonConfig.drinkDelay - drinkTick);
+        }
         if (chargeIndex != -1) {
-            Cache cache = caches[chargeIndex];
-            cache.progress = MathHelper.clamp(cache.progress + cache.speed * acceleration, 0, EverCommonConfig.refillTime);
-            if (EverCommonConfig.naturallyRefill) {
-                cache.progress = MathHelper.clamp(cache.progress + cache.speed, 0, EverCommonConfig.refillTime);
+            long ticks = ticksToCharge(chargeIndex);
+            if (ticks > 0) {
+                delay = Math.min(delay, ticks);
             }
-            if (cache.progress == EverCommonConfig.refillTime) {
-                updateCharge();
-                if (!owner.world.isRemote) {
-                    CoreModule.sync((ServerPlayerEntity) owner);
-                }
+        }
+        if (acceleration > 0) {
+            delay = Math.min(delay, Math.max(1, accelerationTicks(acceleration)));
+        }
+        return delay == Long.MAX_VALUE ? 0 : delay;
+    }
+
+    private long ticksToCharge(int slot) {
+        double remaining = EverCommonConfig.refillTime - progress[slot];
+        if (remaining <= 0) {
+            return 1;
+        }
+        float speed = this.speed[slot];
+        if (speed <= 0) {
+            return 0;
+        }
+        long hi;
+        if (EverCommonConfig.naturallyRefill) {
+            hi = (long) Math.ceil(remaining / speed);
+        } else {
+            hi = accelerationTicks(acceleration);
+            if (hi == 0 || charged(speed, acceleration, hi) < remaining) {
+                return 0;
+            }
+        }
+        long lo = 1;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (charged(speed, acceleration, mid) >= remaining) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
             }
         }
+        return lo;
+    }
+
+    /**
+     * Moves the anchor forward by the given ticks and handles the events that
+     * happen at the new anchor, in the order the old per-tick update used.
+     */
+    private void advance(long ticks) {
+        if (chargeIndex != -1) {
+            double charged = charged(speed[chargeIndex], acceleration, ticks);
+            if (charged >= EverCommonConfig.refillTime - progress[chargeIndex]) {
+                progress[chargeIndex] = EverCommonConfig.refillTime;
+            } else {
+                progress[chargeIndex] = Math.min(EverCommonConfig.refillTime, (float) (progress[chargeIndex] + charged));
+            }
+            updateUnfilled(chargeIndex);
+            dirtyProgress |= 1 << chargeIndex;
+        }
+        if (acceleration > 0) {
+            acceleration = accelerationAfter(acceleration, ticks);
+        }
         if (drinkIndex != -1) {
-            if (++drinkTick >= EverCommonConfig.drinkDelay) {
-                drink(drinkIndex);
-                stopDrinking();
-                if (chargeIndex == -1) {
-                    updateCharge();
-                }
+            drinkTick += ticks;
+        }
+        anchorTime += ticks;
+        dirtyFlags |= DIRTY_ANCHOR;
+
+        // the client predicts completions by itself, no need to sync
+        if (chargeIndex != -1 && progress[chargeIndex] >= EverCommonConfig.refillTime) {
+            updateCharge();
+        }
+        if (drinkIndex != -1 && drinkTick >= EverCommonConfig.drinkDelay) {
+            drink(drinkIndex);
+            stopDrinking();
+            if (chargeIndex == -1) {
+                updateCharge();
             }
         }
     }
 
+    /**
+     * Progress gained over the given ticks: the natural refill plus
+     * {@code speed * acceleration}, where acceleration decays by
+     * {@link #ACCELERATION_DECAY} before each tick.
+     */
+    private static double charged(float speed, float acceleration, long ticks) {
+        long n = Math.min(ticks, accelerationTicks(acceleration));
+        double accelerated = (double) acceleration * n - ACCELERATION_DECAY * (n * (n + 1) / 2d);
+        return speed * ((EverCommonConfig.naturallyRefill ? ticks : 0) + accelerated);
+    }
+
+    private static long accelerationTicks(float acceleration) {
+        return (long) (acceleration / ACCELERATION_DECAY);
+    }
+
+    /**
+     * A remainder too small to last another tick adds nothing to
+     * {@link #charged(float, float, long)}, so it is dropped.
+     */
+    private static float accelerationAfter(float acceleration, long ticks) {
+        float after = acceleration - ACCELERATION_DECAY * ticks;
+        return accelerationTicks(after) == 0 ? 0 : after;
+    }
+
+    public float getProgress(int slot) {
+        return getProgress(slot, isAttached() ? now() : anchorTime);
+    }
+
+    /**
+     * @param time game time no earlier than the anchor and before the next event
+     */
+    public float getProgress(int slot, long time) {
+        if (specs[slot] == null) {
+            return 0;
+        }
+        if (slot != chargeIndex || anchorTime == -1 || time <= anchorTime) {
+            return progress[slot];
+        }
+        return (float) Math.min(EverCommonConfig.refillTime, progress[slot] + charged(speed[slot], acceleration, time - anchorTime));
+    }
+
+    public float getAcceleration() {
+        if (!isAttached() || anchorTime == -1) {
+            return acceleration;
+        }
+        return accelerationAfter(acceleration, Math.max(0, now() - anchorTime));
+    }
+
+    public long getAnchorTime() {
+        return anchorTime;
+    }
+
+    public float getAnchorAcceleration() {
+        return acceleration;
+    }
+
+    /**
+     * Adopts the anchor of the server side handler, so that both sides evaluate
+     * the same function of game time. Progress of the slots is expected to be
+     * set right after.
+     */
+    public void setAnchor(long anchorTime, int chargeIndex, float acceleration, int drinkIndex, int drinkTick) {
+        this.anchorTime = anchorTime;
+        this.chargeIndex = chargeIndex;
+        this.acceleration = acceleration;
+        this.drinkIndex = drinkIndex;
+        this.drinkTick = drinkTick;
+    }
+
+    /**
+     * Hash of what the player can see at the given game time, used to detect
+     * drift between the server and the client prediction.
+     */
+    public int checksum(long time) {
+        int hash = slots;
+        hash = 31 * hash + chargeIndex;
+        hash = 31 * hash + drinkIndex;
+        for (int i = 0; i < specs.length; i++) {
+            hash = 31 * hash + (specs[i] == null ? -1 : (int) (getProgress(i, time) * 100 / EverCommonConfig.refillTime));
+        }
+        return hash;
+    }
+
     public void startDrinking(int slot) {
+        rebase();
         drinkIndex = slot;
-        if (owner.world.isRemote) {
+        if (isRemote()) {
             new CDrinkPacket(slot).send();
         }
+        schedule();
     }
 
     public void stopDrinking() {
+        rebase();
         drinkIndex = -1;
         drinkTick = 0;
+        schedule();
     }
 
     public void invalidate() {
+        getScheduler().cancel(timer);
+        setActive(false);
         owner = null;
     }
 
-    private void drink(int slot) {
-        Cache cache = caches[slot];
-        cache.progress = 0;
-        if (owner.world.isRemote) {
+    /**
+     * Keeps {@link CoreModule#ACTIVE_HANDLERS} in step with the state, so
+     * that work which only concerns charging, drinking or accelerated
+     * handlers never looks at the idle majority.
+     */
+    private void setActive(boolean active) {
+        if (this.active == active) {
             return;
         }
-        PotionType type = cache.type;
-        if (cache.effect == null && type != PotionType.NORMAL) {
-            type = PotionType.SPLASH;
-            BlockPos pos = owner.getPosition();
-            this.extinguishFires(owner.world, pos, Direction.DOWN);
-            this.extinguishFires(owner.world, pos.up(), Direction.DOWN);
+        this.active = active;
+        if (active) {
+            CoreModule.ACTIVE_HANDLERS.add(this);
+        } else {
+            CoreModule.ACTIVE_HANDLERS.remove(this);
+        }
+    }
 
-            for (Direction direction : Direction.Plane.HORIZONTAL) {
-                this.extinguishFires(owner.world, pos.offset(direction), direction);
-            }
+    public boolean isActive() {
+        return active;
+    }
+
+    @Nullable
+    public PlayerEntity getOwner() {
+        return owner;
+    }
+
+    private void drink(int slot) {
+        setAnchorProgress(slot, 0);
+        dirtyProgress |= 1 << slot;
+        if (!isRemote()) {
+            applyDrink(specs[slot]);
+        }
+    }
+
+    /**
+     * Applies the effect of a finished drink to the world, server side only.
+     */
+    protected void applyDrink(CoreSpec spec) {
+        PotionType type = spec.type;
+        Metrics.DRINKS[type.ordinal()].inc();
+        if (spec.effect == null && type != PotionType.NORMAL) {
+            type = PotionType.SPLASH;
+            SPLASH.extinguishFires(owner.world, owner.getPosition());
         }
 
         if (type == PotionType.NORMAL) {
-            doEffect(cache.effect, owner);
+            doEffect(spec.effect, owner);
         } else if (type == PotionType.SPLASH) {
-            AxisAlignedBB axisalignedbb = new AxisAlignedBB(owner.getPosition()).grow(4.0D, 2.0D, 4.0D);
-            List<LivingEntity> list = owner.world.getEntitiesWithinAABB(LivingEntity.class, axisalignedbb);
-            if (!list.isEmpty()) {
-                for (LivingEntity livingentity : list) {
-                    double d0 = owner.getDistanceSq(livingentity);
-                    if (d0 < 16.0D) {
-                        doEffect(cache.effect, livingentity);
-                    }
-                }
+            List<LivingEntity> list = SPLASH.collect(owner, EverCommonConfig.splashMaxTargets);
+            for (int i = 0; i < list.size(); i++) {
+                doEffect(spec.effect, list.get(i));
             }
-        } else { // PotionEntity.makeAreaOfEffectCloud
-            AreaEffectCloudEntity areaeffectcloudentity = new AreaEffectCloudEntity(owner.world, owner.getPosX(), owner.getPosY(), owner.getPosZ());
-            areaeffectcloudentity.setOwner(owner);
-            areaeffectcloudentity.setRadius(3.0F);
-            areaeffectcloudentity.setRadiusOnUse(-0.5F);
-            areaeffectcloudentity.setWaitTime(10);
-            areaeffectcloudentity.setRadiusPerTick(-areaeffectcloudentity.getRadius() / areaeffectcloudentity.getDuration());
-            areaeffectcloudentity.addEffect(new EffectInstance(cache.effect));
-
-            owner.world.addEntity(areaeffectcloudentity);
+        } else {
+            CloudManager.release(owner, spec.effect);
         }
         if (type != PotionType.NORMAL) {
-            int i = (cache.effect != null && cache.effect.getPotion().isInstant()) ? 2007 : 2002;
-            owner.world.playEvent(i, owner.getPosition(), cache.color);
+            int i = (spec.effect != null && spec.effect.getPotion().isInstant()) ? 2007 : 2002;
+            owner.world.playEvent(i, owner.getPosition(), spec.color);
         }
     }
 
@@ -247,65 +934,73 @@ public class EverHandler extends ItemStackHandler {
         }
     }
 
-    private void extinguishFires(World world, BlockPos pos, Direction direction) {
-        BlockState blockstate = world.getBlockState(pos);
-        Block block = blockstate.getBlock();
-        if (block == Blocks.FIRE) {
-            world.extinguishFire(null, pos.offset(direction), direction.getOpposite());
-        } else if (block == Blocks.CAMPFIRE && blockstate.get(CampfireBlock.LIT)) {
-            world.playEvent(null, 1009, pos, 0);
-            world.setBlockState(pos, blockstate.with(CampfireBlock.LIT, Boolean.FALSE));
-        }
-    }
-
     public boolean canDrink(int slot) {
         if (slot < 0 || slot >= slots) {
             return false;
         }
-        return owner != null && drinkIndex == -1 && caches[slot] != null && caches[slot].progress >= EverCommonConfig.refillTime;
-    }
-
-    public static final class Cache {
-        @Nullable
-        public final EffectInstance effect;
-        public final PotionType type;
-        public float progress;
-        public final int color;
-        public final ItemStack stack;
-        public final float speed;
-
-        private Cache(ItemStack stack) {
-            this.stack = stack;
-            effect = CoreItem.getEffectInstance(stack);
-            type = CoreItem.getPotionType(stack);
-            speed = CoreItem.getChargeModifier(stack);
-            if (effect != null) {
-                int color = effect.getPotion().getLiquidColor();
-                Vector3f hsv = MathUtil.RGBtoHSV(color);
-                this.color = MathHelper.hsvToRGB(hsv.getX(), hsv.getY(), 1);
-            } else {
-                color = 4749311; // 3694022;
-            }
-        }
-
-        private boolean matches(ItemStack stack) {
-            return ItemStack.areItemStacksEqual(this.stack, stack);
-        }
+        update();
+        return isAttached() && drinkIndex == -1 && specs[slot] != null && getProgress(slot) >= EverCommonConfig.refillTime;
     }
 
     public void accelerate(float f) {
+        rebase();
         acceleration = Math.min(acceleration + f, 2);
+        schedule();
     }
 
     public void refill() {
+        refill(true);
+    }
+
+    /**
+     * @param sync whether to request a sync, bulk callers queue their own
+     */
+    public void refill(boolean sync) {
+        rebase();
         chargeIndex = -1;
-        for (int i = 0; i < caches.length; i++) {
-            if (caches[i] == null) {
+        unfilled = 0;
+        for (int i = 0; i < specs.length; i++) {
+            if (specs[i] == null) {
+                continue;
+            }
+            progress[i] = EverCommonConfig.refillTime;
+            dirtyProgress |= 1 << i;
+        }
+        schedule();
+        if (sync) {
+            requestSync();
+        }
+    }
+
+    /**
+     * Empties every slot and starts charging the first one again. Does not
+     * request a sync.
+     */
+    public void resetProgress() {
+        rebase();
+        for (int i = 0; i < specs.length; i++) {
+            if (specs[i] == null) {
                 continue;
             }
-            caches[i].progress = EverCommonConfig.refillTime;
+            setAnchorProgress(i, 0);
+            dirtyProgress |= 1 << i;
         }
+        updateCharge();
+        schedule();
+    }
+
+    protected void requestSync() {
         CoreModule.sync((ServerPlayerEntity) owner);
     }
 
+    private static class MissingRow {
+        private final String effect;
+        private final int[] data;
+
+        private MissingRow(String effect, int[] data) {
+            this.effect = effect;
+            this.data = data;
+        }
+    }
+
 }
@@ -0,0 +1,100 @@
+package snownee.everpotion.handler;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.google.common.collect.Lists;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.CampfireBlock;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+
+/**
+ * Finds the entities hit by a splash. The distance test and the target cap
+ * run inside the entity query, so entities outside the sphere are never
+ * collected, and the target list and block position are reused between
+ * splashes. An instance must only be used from one thread.
+ */
+public class SplashEngine {
+
+    public static final double RADIUS_SQ = 16;
+
+    private final List<LivingEntity> targets = Lists.newArrayList();
+    private final BlockPos.Mutable pos = new BlockPos.Mutable();
+    private final Predicate<LivingEntity> filter = this::test;
+    private LivingEntity source;
+    private int limit;
+
+    /**
+     * Collects the owner followed by every other living entity within
+     * {@link #RADIUS_SQ} of it.
+     *
+     * @param maxTargets at most this many entities, owner included. 0 for no limit
+     * @return a list that is reused by the next call
+     */
+    public List<LivingEntity> collect(LivingEntity owner, int maxTargets) {
+        targets.clear();
+        targets.add(owner);
+        source = owner;
+        limit = maxTargets > 0 ? maxTargets : Integer.MAX_VALUE;
+        if (limit > 1) {
+            int x = MathHelper.floor(owner.getPosX());
+            int y = MathHelper.floor(owner.getPosY());
+            int z = MathHelper.floor(owner.getPosZ());
+            // same box as new AxisAlignedBB(owner.getPosition()).grow(4, 2, 4), without the intermediate
+            AxisAlignedBB box = new AxisAlignedBB(x - 4, y - 2, z - 4, x + 5, y + 3, z + 5);
+            query(owner.world, box, filter);
+        }
+        source = null;
+        return targets;
+    }
+
+    /**
+     * The entity query, replaced by benchmarks that run without a world.
+     */
+    protected void query(World world, AxisAlignedBB box, Predicate<LivingEntity> filter) {
+        world.getEntitiesWithinAABB(LivingEntity.class, box, filter);
+    }
+
+    private boolean test(LivingEntity entity) {
+        if (entity != source && targets.size() < limit && source.getDistanceSq(entity) < RADIUS_SQ) {
+            targets.add(entity);
+        }
+        // nothing is ever added to the list of the query itself
+        return false;
+    }
+
+    /**
+     * Puts out fire and campfires around the given block, like a water
+     * splash potion.
+     */
+    public void extinguishFires(World world, BlockPos center) {
+        int x = center.getX();
+        int y = center.getY();
+        int z = center.getZ();
+        extinguishFires(world, pos.setPos(x, y, z), Direction.DOWN);
+        extinguishFires(world, pos.setPos(x, y + 1, z), Direction.DOWN);
+        for (Direction direction : Direction.Plane.HORIZONTAL) {
+            extinguishFires(world, pos.setPos(x + direction.getXOffset(), y, z + direction.getZOffset()), direction);
+        }
+    }
+
+    private static void extinguishFires(World world, BlockPos pos, Direction direction) {
+        BlockState blockstate = world.getBlockState(pos);
+        Block block = blockstate.getBlock();
+        if (block == Blocks.FIRE) {
+            world.extinguishFire(null, pos.offset(direction), direction.getOpposite());
+        } else if (block == Blocks.CAMPFIRE && blockstate.get(CampfireBlock.LIT)) {
+            world.playEvent(null, 1009, pos, 0);
+            world.setBlockState(pos, blockstate.with(CampfireBlock.LIT, Boolean.FALSE));
+        }
+    }
+
+}
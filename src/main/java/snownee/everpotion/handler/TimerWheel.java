@@ -0,0 +1,124 @@
+package snownee.everpotion.handler;
+
+/**
+ * Hashed timer wheel with tick granularity. Timers are intrusive list nodes
+ * so scheduling and cancelling never allocate, and the cost of one
+ * {@link #advance()} only depends on the timers hashed into the current
+ * bucket, not on how many owners exist.
+ */
+public class TimerWheel {
+
+    private final Timer[] buckets;
+    private final int mask;
+    private long tick;
+    private int size;
+
+    public TimerWheel(int bucketCount) {
+        if (Integer.bitCount(bucketCount) != 1) {
+            throw new IllegalArgumentException("bucketCount must be a power of two");
+        }
+        buckets = new Timer[bucketCount];
+        mask = bucketCount - 1;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules the timer to fire after the given number of ticks. A timer
+     * that is already scheduled is moved.
+     */
+    public void schedule(Timer timer, int delay) {
+        cancel(timer);
+        timer.deadline = tick + Math.max(1, delay);
+        int index = (int) (timer.deadline & mask);
+        timer.next = buckets[index];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        buckets[index] = timer;
+        timer.wheel = this;
+        ++size;
+    }
+
+    public void cancel(Timer timer) {
+        if (timer.wheel != this) {
+            return;
+        }
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            buckets[(int) (timer.deadline & mask)] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = timer.next = null;
+        timer.wheel = null;
+        --size;
+    }
+
+    /**
+     * Moves the wheel forward by one tick and fires every timer that is due.
+     * Timers may reschedule themselves while firing.
+     */
+    public void advance() {
+        ++tick;
+        if (size == 0) {
+            return;
+        }
+        // unlink everything that is due first, so that firing can freely touch the wheel
+        Timer due = null;
+        Timer timer = buckets[(int) (tick & mask)];
+        while (timer != null) {
+            Timer next = timer.next;
+            if (timer.deadline <= tick) {
+                cancel(timer);
+                timer.nextDue = due;
+                due = timer;
+            }
+            timer = next;
+        }
+        while (due != null) {
+            timer = due;
+            due = timer.nextDue;
+            timer.nextDue = null;
+            if (!timer.isScheduled()) {
+                timer.fire();
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < buckets.length; i++) {
+            Timer timer = buckets[i];
+            while (timer != null) {
+                Timer next = timer.next;
+                timer.prev = timer.next = null;
+                timer.wheel = null;
+                timer = next;
+            }
+            buckets[i] = null;
+        }
+        size = 0;
+    }
+
+    public static abstract class Timer {
+        private TimerWheel wheel;
+        private Timer prev;
+        private Timer next;
+        private Timer nextDue;
+        private long deadline;
+
+        public boolean isScheduled() {
+            return wheel != null;
+        }
+
+        protected abstract void fire();
+    }
+}
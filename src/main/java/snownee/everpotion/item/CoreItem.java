@@ -1,8 +1,6 @@
 package snownee.everpotion.item;
 
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
@@ -11,33 +9,27 @@ import net.minecraft.item.IItemPropertyGetter;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemGroup;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.crafting.IRecipe;
-import net.minecraft.item.crafting.RecipeManager;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.potion.Effect;
 import net.minecraft.potion.EffectInstance;
-import net.minecraft.potion.EffectUtils;
 import net.minecraft.util.NonNullList;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.ITextComponent;
-import net.minecraft.util.text.TextFormatting;
-import net.minecraft.util.text.TranslationTextComponent;
 import net.minecraft.world.World;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
-import snownee.everpotion.CoreModule;
-import snownee.everpotion.EverCommonConfig;
 import snownee.everpotion.EverPotion;
 import snownee.everpotion.PotionType;
-import snownee.everpotion.crafting.CraftingModule;
+import snownee.everpotion.client.CorePresentation;
+import snownee.everpotion.crafting.CoreCatalog;
 import snownee.kiwi.Kiwi;
 import snownee.kiwi.item.ModItem;
-import snownee.kiwi.util.NBTHelper;
 
 public class CoreItem extends ModItem {
 
     private static final IItemPropertyGetter TYPE_GETTER = (stack, world, entity) -> {
-        return getPotionType(stack).ordinal();
+        // the spec is interned, and this getter also exists on the dedicated server
+        return CoreSpec.of(stack).type.ordinal();
     };
 
     public CoreItem() {
@@ -48,45 +40,26 @@ public class CoreItem extends ModItem {
     @Override
     @OnlyIn(Dist.CLIENT)
     public void addInformation(ItemStack stack, World worldIn, List<ITextComponent> tooltip, ITooltipFlag flagIn) {
-        EffectInstance effectinstance = getEffectInstance(stack);
-        if (effectinstance != null) {
-            ITextComponent itextcomponent = new TranslationTextComponent(effectinstance.getEffectName());
-            Effect effect = effectinstance.getPotion();
-            if (effectinstance.getAmplifier() > 0) {
-                itextcomponent.appendText(" ").appendSibling(new TranslationTextComponent("potion.potency." + effectinstance.getAmplifier()));
-            }
-            if (effectinstance.getDuration() > 20) {
-                itextcomponent.appendText(" (").appendText(EffectUtils.getPotionDurationString(effectinstance, EverCommonConfig.durationFactor)).appendText(")");
-            }
-            tooltip.add(itextcomponent.applyTextStyle(effect.getEffectType().getColor()));
-        } else {
-            tooltip.add((new TranslationTextComponent("effect.none")).applyTextStyle(TextFormatting.GRAY));
-        }
-        PotionType type = getPotionType(stack);
-        if (type != PotionType.NORMAL) {
-            tooltip.add(new TranslationTextComponent("tip.everpotion.potionType." + type.toString()).applyTextStyle(TextFormatting.GRAY));
-        }
+        CorePresentation.of(stack).addTooltip(tooltip);
         super.addInformation(stack, worldIn, tooltip, flagIn);
     }
 
     @Nullable
     public static EffectInstance getEffectInstance(ItemStack stack) {
-        CompoundNBT tag = stack.getChildTag("Effect");
-        return tag == null ? null : EffectInstance.read(tag);
+        return CoreSpec.of(stack).getEffectInstance();
     }
 
     @Nullable
     public static Effect getEffect(ItemStack stack) {
-        EffectInstance instance = getEffectInstance(stack);
-        return instance == null ? null : instance.getPotion();
+        return CoreSpec.of(stack).potion;
     }
 
     public static PotionType getPotionType(ItemStack stack) {
-        return PotionType.valueOf(NBTHelper.of(stack).getByte("Type"));
+        return CoreSpec.of(stack).type;
     }
 
     public static float getChargeModifier(ItemStack stack) {
-        return NBTHelper.of(stack).getFloat("Charge", 1);
+        return CoreSpec.of(stack).charge;
     }
 
     public ItemStack make(@Nullable EffectInstance effect, PotionType type, float charge) {
@@ -104,25 +77,10 @@ public class CoreItem extends ModItem {
     @Override
     public void fillItemGroup(ItemGroup group, NonNullList<ItemStack> items) {
         if (this.isInGroup(group)) {
-            if (Kiwi.isLoaded(new ResourceLocation(EverPotion.MODID, "crafting")) && CraftingModule.SERVER != null) {
-                RecipeManager manager = CraftingModule.SERVER.getRecipeManager();
-                /* off */
-                items.addAll(manager.getRecipes(CraftingModule.RECIPE_TYPE).values().stream()
-                        .map(IRecipe::getRecipeOutput)
-                        .filter(s -> s.getItem() == CoreModule.CORE)
-                        .sorted((a, b) -> {
-                            String effectA = Objects.toString(getEffect(a));
-                            String effectB = Objects.toString(getEffect(b));
-                            int i = effectA.compareTo(effectB);
-                            if (i != 0) {
-                                return i;
-                            }
-                            PotionType typeA = getPotionType(a);
-                            PotionType typeB = getPotionType(b);
-                            return typeA.compareTo(typeB);
-                        })
-                        .collect(Collectors.toList()));
-                /* on */
+            if (Kiwi.isLoaded(new ResourceLocation(EverPotion.MODID, "crafting"))) {
+                for (ItemStack stack : CoreCatalog.getClient()) {
+                    items.add(stack.copy());
+                }
             }
         }
     }
@@ -0,0 +1,196 @@
+package snownee.everpotion.item;
+
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import net.minecraft.client.renderer.Vector3f;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.potion.Effect;
+import net.minecraft.potion.EffectInstance;
+import net.minecraft.util.math.MathHelper;
+import net.minecraftforge.common.util.Constants;
+import snownee.everpotion.CoreModule;
+import snownee.everpotion.PotionType;
+import snownee.kiwi.util.MathUtil;
+
+/**
+ * Immutable description of a core, parsed once per distinct tag. Specs are
+ * interned, so every stack carrying an equal tag resolves to the same
+ * instance no matter how many players hold it.
+ */
+public final class CoreSpec {
+
+    public static final CoreSpec EMPTY = new CoreSpec(null, PotionType.NORMAL, 1);
+
+    private static final Cache<CompoundNBT, CoreSpec> BY_TAG = CacheBuilder.newBuilder().maximumSize(2048).build();
+    private static final Interner<CoreSpec> INTERNER = Interners.newWeakInterner();
+
+    /**
+     * Shared between every stack of this spec, copy it before handing it to
+     * an entity.
+     */
+    @Nullable
+    public final EffectInstance effect;
+    @Nullable
+    public final Effect potion;
+    public final int duration;
+    public final int amplifier;
+    public final PotionType type;
+    public final float charge;
+    /**
+     * Potion color at full brightness, used by the menu and the particles.
+     */
+    public final int color;
+    /**
+     * Desaturated potion color that tints the item.
+     */
+    public final int itemColor;
+    private final int hash;
+    private CompoundNBT canonicalTag;
+    private String subtypeKey;
+
+    private CoreSpec(@Nullable EffectInstance effect, PotionType type, float charge) {
+        this.effect = effect;
+        this.type = type;
+        this.charge = charge;
+        if (effect != null) {
+            potion = effect.getPotion();
+            duration = effect.getDuration();
+            amplifier = effect.getAmplifier();
+            int rgb = potion.getLiquidColor();
+            Vector3f hsv = MathUtil.RGBtoHSV(rgb);
+            color = MathHelper.hsvToRGB(hsv.getX(), hsv.getY(), 1);
+            itemColor = MathHelper.hsvToRGB(hsv.getX(), hsv.getY() * .75f, hsv.getZ());
+        } else {
+            potion = null;
+            duration = amplifier = 0;
+            color = 4749311; // 3694022;
+            Vector3f hsv = MathUtil.RGBtoHSV(3694022);
+            itemColor = MathHelper.hsvToRGB(hsv.getX(), hsv.getY() * .75f, hsv.getZ());
+        }
+        // EffectInstance leaves these flags out of equals and hashCode
+        hash = Objects.hash(effect, showParticles(effect), showIcon(effect), type, charge);
+    }
+
+    private static boolean showParticles(@Nullable EffectInstance effect) {
+        return effect != null && effect.doesShowParticles();
+    }
+
+    private static boolean showIcon(@Nullable EffectInstance effect) {
+        return effect != null && effect.isShowIcon();
+    }
+
+    public static CoreSpec of(ItemStack stack) {
+        CompoundNBT tag = stack.getTag();
+        if (tag == null) {
+            return EMPTY;
+        }
+        CoreSpec spec = BY_TAG.getIfPresent(tag);
+        if (spec == null) {
+            spec = parse(tag);
+            // the stack may be modified later, so the key must not be its tag
+            BY_TAG.put(tag.copy(), spec);
+        }
+        return spec;
+    }
+
+    public static CoreSpec parse(CompoundNBT tag) {
+        EffectInstance effect = null;
+        if (tag.contains("Effect", Constants.NBT.TAG_COMPOUND)) {
+            effect = EffectInstance.read(tag.getCompound("Effect"));
+        }
+        PotionType type = PotionType.valueOf(tag.getByte("Type"));
+        float charge = tag.contains("Charge", Constants.NBT.TAG_ANY_NUMERIC) ? tag.getFloat("Charge") : 1;
+        if (effect == null && type == PotionType.NORMAL && charge == 1) {
+            return EMPTY;
+        }
+        return INTERNER.intern(new CoreSpec(effect, type, charge));
+    }
+
+    /**
+     * @return whether the stack is fully described by its spec and a charge
+     *         modifier in whole hundredths, so that only the spec needs to be
+     *         stored or sent
+     */
+    public static boolean isCanonical(ItemStack stack) {
+        if (stack.getItem() != CoreModule.CORE || stack.getCount() != 1 || stack.getTag() == null) {
+            return false;
+        }
+        CoreSpec spec = of(stack);
+        int charge = spec.getChargeHundredths();
+        return charge >= 0 && charge / 100F == spec.charge && stack.getTag().equals(spec.getCanonicalTag());
+    }
+
+    public int getChargeHundredths() {
+        return Math.round(charge * 100);
+    }
+
+    /**
+     * @return the tag of a stack made by {@link CoreItem#make} from nothing
+     *         but the fields a compact row or packet keeps, which is what
+     *         every core from the bundled recipes carries. Do not modify
+     */
+    public CompoundNBT getCanonicalTag() {
+        if (canonicalTag == null) {
+            // a fresh instance, so that extra effect data such as curative items does not count
+            EffectInstance fresh = null;
+            if (effect != null) {
+                fresh = new EffectInstance(potion, duration, amplifier, effect.isAmbient(), effect.doesShowParticles(), effect.isShowIcon());
+            }
+            canonicalTag = CoreModule.CORE.make(fresh, type, charge).getTag();
+        }
+        return canonicalTag;
+    }
+
+    /**
+     * @return effect, amplifier, duration, effect flags, type and charge as a
+     *         short string, which tells cores apart for JEI without
+     *         stringifying the tag
+     */
+    public String getSubtypeKey() {
+        if (subtypeKey == null) {
+            StringBuilder sb = new StringBuilder();
+            if (potion == null) {
+                sb.append("none");
+            } else {
+                sb.append(potion.getRegistryName()).append(',').append(amplifier).append(',').append(duration).append(',');
+                sb.append(effect.isAmbient() ? 'a' : '-').append(effect.doesShowParticles() ? 'p' : '-').append(effect.isShowIcon() ? 'i' : '-');
+            }
+            subtypeKey = sb.append(',').append(type.ordinal()).append(',').append(getChargeHundredths()).toString();
+        }
+        return subtypeKey;
+    }
+
+    /**
+     * @return a new instance that the caller is free to modify
+     */
+    @Nullable
+    public EffectInstance getEffectInstance() {
+        return effect == null ? null : new EffectInstance(effect);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CoreSpec)) {
+            return false;
+        }
+        CoreSpec that = (CoreSpec) o;
+        return hash == that.hash && type == that.type && Float.compare(charge, that.charge) == 0 && Objects.equals(effect, that.effect) && showParticles(effect) == showParticles(that.effect) && showIcon(effect) == showIcon(that.effect);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+}
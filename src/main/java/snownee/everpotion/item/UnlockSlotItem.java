@@ -9,6 +9,7 @@ import net.minecraft.item.Item;
 import net.minecraft.item.ItemGroup;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Rarity;
+import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.Hand;
 import net.minecraft.util.NonNullList;
@@ -29,6 +30,15 @@ import snownee.kiwi.util.NBTHelper;
 
 public class UnlockSlotItem extends ModItem {
 
+    private static final String[] SUBTYPE_KEYS = new String[(EverHandler.MAX_SLOTS + 1) * 2];
+
+    static {
+        for (int tier = 0; tier <= EverHandler.MAX_SLOTS; tier++) {
+            SUBTYPE_KEYS[tier << 1] = Integer.toString(tier);
+            SUBTYPE_KEYS[tier << 1 | 1] = tier + ",force";
+        }
+    }
+
     public UnlockSlotItem() {
         super(new Item.Properties());
     }
@@ -84,6 +94,15 @@ public class UnlockSlotItem extends ModItem {
         super.addInformation(stack, worldIn, tooltip, flagIn);
     }
 
+    @Override
+    public ITextComponent getDisplayName(ItemStack stack) {
+        int tier = getTier(stack);
+        if (tier > 4) {
+            return new TranslationTextComponent(getTranslationKey() + ".n", tier);
+        }
+        return super.getDisplayName(stack);
+    }
+
     @Override
     public String getTranslationKey(ItemStack stack) {
         int tier = getTier(stack);
@@ -96,19 +115,33 @@ public class UnlockSlotItem extends ModItem {
     @Override
     public Rarity getRarity(ItemStack stack) {
         switch (getTier(stack)) {
-        default:
+        case 0:
+        case 1:
             return Rarity.COMMON;
         case 2:
             return Rarity.UNCOMMON;
         case 3:
             return Rarity.RARE;
-        case 4:
+        default:
             return Rarity.EPIC;
         }
     }
 
     public static int getTier(ItemStack stack) {
-        return MathHelper.clamp(NBTHelper.of(stack).getInt("Tier"), 0, 4);
+        return MathHelper.clamp(NBTHelper.of(stack).getInt("Tier"), 0, EverHandler.MAX_SLOTS);
+    }
+
+    /**
+     * @return tier and force as a short string for JEI, taken from a fixed
+     *         table
+     */
+    public static String getSubtypeKey(ItemStack stack) {
+        CompoundNBT tag = stack.getTag();
+        if (tag == null) {
+            return SUBTYPE_KEYS[0];
+        }
+        int tier = MathHelper.clamp(tag.getInt("Tier"), 0, EverHandler.MAX_SLOTS);
+        return SUBTYPE_KEYS[tier << 1 | (tag.getBoolean("Force") ? 1 : 0)];
     }
 
     @Override
@@ -118,7 +151,7 @@ public class UnlockSlotItem extends ModItem {
             NBTHelper data = NBTHelper.of(stack);
             for (int i = 0; i < 2; i++) {
                 items.add(stack.copy());
-                for (int j = 1; j <= 4; j++) {
+                for (int j = 1; j <= EverCommonConfig.maxSlots; j++) {
                     data.setInt("Tier", j);
                     items.add(stack.copy());
                 }
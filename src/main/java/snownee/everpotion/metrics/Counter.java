@@ -0,0 +1,34 @@
+package snownee.everpotion.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter extends Metric {
+
+    private final LongAdder value = new LongAdder();
+
+    public Counter(String name, String help, String labels) {
+        super(name, help, labels);
+    }
+
+    public void inc() {
+        value.increment();
+    }
+
+    public void add(long n) {
+        value.add(n);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+
+    @Override
+    public void write(StringBuilder sb) {
+        sb.append(name).append(withLabels(labels, "")).append(' ').append(get()).append('\n');
+    }
+}
@@ -0,0 +1,85 @@
+package snownee.everpotion.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed power of two buckets from 1 microsecond to
+ * about 4 seconds. Recording never allocates.
+ */
+public class Histogram extends Metric {
+
+    private static final int BUCKETS = 24;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+
+    public Histogram(String name, String help, String labels) {
+        super(name, help, labels);
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return upper bound of the bucket in nanoseconds, the last bucket is
+     *         unbounded
+     */
+    private static long bound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1000L << bucket;
+    }
+
+    public void record(long nanos) {
+        int bucket = nanos <= 1000 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros((nanos - 1) / 1000));
+        counts[bucket].increment();
+        sum.add(nanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder adder : counts) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return upper bound in nanoseconds of the bucket holding the given
+     *         quantile, or 0 if nothing was recorded
+     */
+    public long getQuantile(double q) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * q);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i].sum();
+            if (seen >= rank) {
+                return bound(i);
+            }
+        }
+        return bound(BUCKETS - 1);
+    }
+
+    @Override
+    public String getType() {
+        return "histogram";
+    }
+
+    @Override
+    public void write(StringBuilder sb) {
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i].sum();
+            String le = i == BUCKETS - 1 ? "+Inf" : Double.toString(bound(i) / 1e9);
+            sb.append(name).append("_bucket").append(withLabels(labels, "le=\"" + le + "\"")).append(' ').append(seen).append('\n');
+        }
+        sb.append(name).append("_sum").append(withLabels(labels, "")).append(' ').append(getSum() / 1e9).append('\n');
+        sb.append(name).append("_count").append(withLabels(labels, "")).append(' ').append(seen).append('\n');
+    }
+}
@@ -0,0 +1,34 @@
+package snownee.everpotion.metrics;
+
+/**
+ * A single time series, identified by its family name and an optional label.
+ */
+public abstract class Metric {
+
+    public final String name;
+    public final String help;
+    /**
+     * Label pair in Prometheus syntax, like {@code type="splash"}, or empty.
+     */
+    public final String labels;
+
+    protected Metric(String name, String help, String labels) {
+        this.name = name;
+        this.help = help;
+        this.labels = labels;
+    }
+
+    public abstract String getType();
+
+    /**
+     * Appends the samples in the Prometheus text format.
+     */
+    public abstract void write(StringBuilder sb);
+
+    protected static String withLabels(String labels, String extra) {
+        if (labels.isEmpty()) {
+            return extra.isEmpty() ? "" : "{" + extra + "}";
+        }
+        return extra.isEmpty() ? "{" + labels + "}" : "{" + labels + "," + extra + "}";
+    }
+}
@@ -0,0 +1,99 @@
+package snownee.everpotion.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Util;
+import net.minecraft.world.dimension.DimensionType;
+import snownee.everpotion.EverPotion;
+import snownee.everpotion.PotionType;
+
+/**
+ * Registry of the runtime metrics of the mod. Values are only ever reset by
+ * a restart.
+ */
+public final class Metrics {
+
+    private static final Map<String, List<Metric>> FAMILIES = Maps.newLinkedHashMap();
+
+    public static final Histogram TICK = histogram("everpotion_tick_seconds", "Time spent in the mod at the end of each server tick", "");
+    public static final Counter HANDLER_UPDATES = counter("everpotion_handler_updates_total", "Handler events fired by the scheduler", "");
+    public static final Counter[] DRINKS = new Counter[PotionType.values().length];
+    public static final Counter SYNC_FULL_PACKETS = counter("everpotion_packets_sent_total", "Packets sent to clients", "packet=\"sync_full\"");
+    public static final Counter SYNC_DELTA_PACKETS = counter("everpotion_packets_sent_total", "Packets sent to clients", "packet=\"sync_delta\"");
+    public static final Counter CHECKSUM_PACKETS = counter("everpotion_packets_sent_total", "Packets sent to clients", "packet=\"checksum\"");
+    public static final Counter SYNC_FULL_BYTES = counter("everpotion_packet_bytes_sent_total", "Payload bytes sent to clients", "packet=\"sync_full\"");
+    public static final Counter SYNC_DELTA_BYTES = counter("everpotion_packet_bytes_sent_total", "Payload bytes sent to clients", "packet=\"sync_delta\"");
+    public static final Counter CHECKSUM_BYTES = counter("everpotion_packet_bytes_sent_total", "Payload bytes sent to clients", "packet=\"checksum\"");
+    public static final Counter DRINK_PACKETS = counter("everpotion_drink_packets_total", "Drink requests received from clients", "result=\"accepted\"");
+    public static final Counter DRINK_PACKETS_REJECTED = counter("everpotion_drink_packets_total", "Drink requests received from clients", "result=\"rejected\"");
+    public static final Histogram ANVIL_LOOKUP = histogram("everpotion_anvil_lookup_seconds", "Anvil recipe lookups", "");
+    public static final Counter CLOUDS_SPAWNED = counter("everpotion_clouds_total", "Lingering releases", "result=\"spawned\"");
+    public static final Counter CLOUDS_MERGED = counter("everpotion_clouds_total", "Lingering releases", "result=\"merged\"");
+
+    static {
+        for (PotionType type : PotionType.values()) {
+            DRINKS[type.ordinal()] = counter("everpotion_drinks_total", "Finished drinks", "type=\"" + type + "\"");
+        }
+    }
+
+    private Metrics() {}
+
+    private static <T extends Metric> T register(T metric) {
+        FAMILIES.computeIfAbsent(metric.name, k -> Lists.newArrayList()).add(metric);
+        return metric;
+    }
+
+    public static Counter counter(String name, String help, String labels) {
+        return register(new Counter(name, help, labels));
+    }
+
+    public static Histogram histogram(String name, String help, String labels) {
+        return register(new Histogram(name, help, labels));
+    }
+
+    /**
+     * @return every metric in the Prometheus text exposition format
+     */
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        for (List<Metric> family : FAMILIES.values()) {
+            Metric first = family.get(0);
+            sb.append("# HELP ").append(first.name).append(' ').append(first.help).append('\n');
+            sb.append("# TYPE ").append(first.name).append(' ').append(first.getType()).append('\n');
+            for (Metric metric : family) {
+                metric.write(sb);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the metrics to {@code everpotion.prom} in the world folder. The
+     * text is rendered on the calling thread and written in the background.
+     */
+    public static void dump(MinecraftServer server) {
+        File dir = server.getWorld(DimensionType.OVERWORLD).getSaveHandler().getWorldDirectory();
+        String text = toPrometheus();
+        Util.getServerExecutor().execute(() -> {
+            Path file = dir.toPath().resolve(EverPotion.MODID + ".prom");
+            Path tmp = dir.toPath().resolve(EverPotion.MODID + ".prom.tmp");
+            try {
+                Files.write(tmp, text.getBytes(StandardCharsets.UTF_8));
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                EverPotion.LOGGER.warn("Failed to write metrics", e);
+            }
+        });
+    }
+}
@@ -5,7 +5,10 @@ import java.util.function.Supplier;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.network.PacketBuffer;
 import net.minecraftforge.fml.network.NetworkEvent.Context;
+import snownee.everpotion.CoreModule;
 import snownee.everpotion.cap.EverCapabilities;
+import snownee.everpotion.handler.EverHandler;
+import snownee.everpotion.metrics.Metrics;
 import snownee.kiwi.network.ClientPacket;
 
 public class CDrinkPacket extends ClientPacket {
@@ -34,8 +37,14 @@ public class CDrinkPacket extends ClientPacket {
                 ServerPlayerEntity sender = ctx.get().getSender();
                 sender.getCapability(EverCapabilities.HANDLER).ifPresent(hander -> {
                     if (hander.canDrink(pkt.index)) {
+                        Metrics.DRINK_PACKETS.inc();
                         hander.startDrinking(pkt.index);
+                    } else {
+                        Metrics.DRINK_PACKETS_REJECTED.inc();
+                        // let the client drop its predicted drink
+                        hander.markDirty(EverHandler.DIRTY_ANCHOR);
                     }
+                    CoreModule.sync(sender);
                 });
             });
             ctx.get().setPacketHandled(true);
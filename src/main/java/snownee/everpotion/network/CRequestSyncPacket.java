@@ -0,0 +1,55 @@
+package snownee.everpotion.network;
+
+import java.util.function.Supplier;
+
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent.Context;
+import snownee.everpotion.CoreModule;
+import snownee.everpotion.cap.EverCapabilities;
+import snownee.everpotion.handler.EverHandler;
+import snownee.kiwi.network.ClientPacket;
+
+/**
+ * Sent when the client missed a delta and needs a full snapshot. Snapshots go
+ * through {@link PendingSyncQueue}, so they count against the sync budget,
+ * and a player gets at most one per {@link #INTERVAL} ticks. Requests are
+ * delayed rather than dropped, as the client only asks once.
+ */
+public class CRequestSyncPacket extends ClientPacket {
+
+    public static final int INTERVAL = 20;
+
+    public static class Handler extends PacketHandler<CRequestSyncPacket> {
+
+        @Override
+        public CRequestSyncPacket decode(PacketBuffer buf) {
+            return new CRequestSyncPacket();
+        }
+
+        @Override
+        public void encode(CRequestSyncPacket pkt, PacketBuffer buf) {}
+
+        @Override
+        public void handle(CRequestSyncPacket pkt, Supplier<Context> ctx) {
+            ctx.get().enqueueWork(() -> {
+                ServerPlayerEntity player = ctx.get().getSender();
+                EverHandler handler = player == null ? null : player.getCapability(EverCapabilities.HANDLER).orElse(null);
+                if (handler == null) {
+                    return;
+                }
+                long tick = CoreModule.SCHEDULER.getTick();
+                if (handler.lastSyncRequest >= tick) {
+                    // already queued, asking again must not push it back
+                    return;
+                }
+                long due = Math.max(tick, handler.lastSyncRequest + INTERVAL);
+                handler.lastSyncRequest = due;
+                PendingSyncQueue.add(player.getUniqueID(), (int) (due - tick), SyncQueue.FULL);
+            });
+            ctx.get().setPacketHandled(true);
+        }
+
+    }
+
+}
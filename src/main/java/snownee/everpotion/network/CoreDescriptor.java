@@ -0,0 +1,152 @@
+package snownee.everpotion.network;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.potion.Effect;
+import net.minecraft.potion.EffectInstance;
+import snownee.everpotion.CoreModule;
+import snownee.everpotion.PotionType;
+import snownee.everpotion.item.CoreSpec;
+
+/**
+ * Wire form of the stack in one handler slot. Cores that carry exactly the
+ * tag {@link snownee.everpotion.item.CoreItem#make} produces are sent as a
+ * few varints instead of a full item stack with string keyed NBT, anything
+ * else falls back to {@link PacketBuffer#writeItemStack}.
+ */
+public final class CoreDescriptor {
+
+    private static final int EMPTY = 0;
+    private static final int COMPACT = 1;
+    private static final int RAW = 2;
+
+    private static final int TYPE_MASK = 3;
+    private static final int AMBIENT = 4;
+    private static final int PARTICLES = 8;
+    private static final int ICON = 16;
+
+    private int kind;
+    private int effectId = -1;
+    private int duration;
+    private int amplifier;
+    private int flags;
+    /**
+     * Charge modifier in hundredths.
+     */
+    private int charge;
+    private ItemStack stack = ItemStack.EMPTY;
+
+    private CoreDescriptor() {}
+
+    public static CoreDescriptor of(ItemStack stack) {
+        CoreDescriptor descriptor = new CoreDescriptor();
+        descriptor.stack = stack;
+        if (stack.isEmpty()) {
+            descriptor.kind = EMPTY;
+            return descriptor;
+        }
+        // the client must rebuild exactly the same stack
+        if (!CoreSpec.isCanonical(stack)) {
+            descriptor.kind = RAW;
+            return descriptor;
+        }
+        CoreSpec spec = CoreSpec.of(stack);
+        descriptor.kind = COMPACT;
+        descriptor.charge = spec.getChargeHundredths();
+        descriptor.flags = spec.type.ordinal();
+        if (spec.effect != null) {
+            descriptor.effectId = Effect.getId(spec.potion);
+            descriptor.duration = spec.duration;
+            descriptor.amplifier = spec.amplifier;
+            descriptor.flags |= effectFlags(spec.effect);
+        }
+        return descriptor;
+    }
+
+    private static int effectFlags(EffectInstance effect) {
+        int flags = effect.isAmbient() ? AMBIENT : 0;
+        flags |= effect.doesShowParticles() ? PARTICLES : 0;
+        flags |= effect.isShowIcon() ? ICON : 0;
+        return flags;
+    }
+
+    public static CoreDescriptor read(PacketBuffer buf) {
+        CoreDescriptor descriptor = new CoreDescriptor();
+        descriptor.kind = buf.readByte();
+        if (descriptor.kind == RAW) {
+            descriptor.stack = buf.readItemStack();
+        } else if (descriptor.kind == COMPACT) {
+            descriptor.effectId = buf.readVarInt() - 1;
+            if (descriptor.effectId != -1) {
+                descriptor.duration = buf.readVarInt();
+                descriptor.amplifier = buf.readVarInt();
+            }
+            descriptor.flags = buf.readByte();
+            descriptor.charge = buf.readVarInt();
+            descriptor.stack = null;
+        }
+        return descriptor;
+    }
+
+    public void write(PacketBuffer buf) {
+        buf.writeByte(kind);
+        if (kind == RAW) {
+            buf.writeItemStack(stack);
+        } else if (kind == COMPACT) {
+            buf.writeVarInt(effectId + 1);
+            if (effectId != -1) {
+                buf.writeVarInt(duration);
+                buf.writeVarInt(amplifier);
+            }
+            buf.writeByte(flags);
+            buf.writeVarInt(charge);
+        }
+    }
+
+    /**
+     * @return whether the current stack of the slot already is the described
+     *         one, so that it can be kept
+     */
+    public boolean matches(ItemStack current) {
+        if (kind != COMPACT) {
+            return ItemStack.areItemStacksEqual(stack, current);
+        }
+        if (current.getItem() != CoreModule.CORE || current.getCount() != 1 || current.getTag() == null) {
+            return false;
+        }
+        CoreSpec spec = CoreSpec.of(current);
+        if (spec.type.ordinal() != (flags & TYPE_MASK) || spec.charge != charge / 100F) {
+            return false;
+        }
+        if (spec.effect == null ? effectId != -1 : effectId != Effect.getId(spec.potion) || spec.duration != duration || spec.amplifier != amplifier || effectFlags(spec.effect) != (flags & ~TYPE_MASK)) {
+            return false;
+        }
+        return current.getTag().equals(spec.getCanonicalTag());
+    }
+
+    public ItemStack toStack() {
+        if (stack == null) {
+            Effect effect = effectId == -1 ? null : Effect.get(effectId);
+            EffectInstance instance = null;
+            if (effect != null) {
+                instance = new EffectInstance(effect, duration, amplifier, (flags & AMBIENT) != 0, (flags & PARTICLES) != 0, (flags & ICON) != 0);
+            }
+            stack = CoreModule.CORE.make(instance, PotionType.valueOf((byte) (flags & TYPE_MASK)), charge / 100F);
+        }
+        return stack;
+    }
+
+    /**
+     * Progress is sent as a fraction of the refill time in 16 bits. The
+     * server keeps the value the client will decode, so both sides predict
+     * from the same anchor.
+     */
+    public static int quantizeProgress(float progress, int refillTime) {
+        return Math.max(0, Math.min(0xFFFF, Math.round(progress / refillTime * 0xFFFF)));
+    }
+
+    public static float dequantizeProgress(int quantized, int refillTime) {
+        return quantized * (float) refillTime / 0xFFFF;
+    }
+
+}
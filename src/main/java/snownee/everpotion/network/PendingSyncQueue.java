@@ -0,0 +1,85 @@
+package snownee.everpotion.network;
+
+import java.util.UUID;
+
+import it.unimi.dsi.fastutil.objects.Object2LongLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.server.MinecraftServer;
+import snownee.everpotion.CoreModule;
+import snownee.everpotion.EverCommonConfig;
+
+/**
+ * Syncs that may wait a few ticks, like the full snapshot after a player
+ * joins a world or the result of a bulk admin command. Requests are keyed by
+ * player UUID and merge, and at most {@link EverCommonConfig#syncBudget}
+ * players are handed to {@link SyncQueue} per tick, so a mass reconnect or a
+ * refill of everyone is spread over several ticks. Players who leave before
+ * their turn are dropped.
+ */
+public final class PendingSyncQueue {
+
+    /**
+     * Due tick shifted left by two, with the {@link SyncQueue} intents in the
+     * low bits.
+     */
+    private static final Object2LongLinkedOpenHashMap<UUID> PENDING = new Object2LongLinkedOpenHashMap<>();
+
+    static {
+        PENDING.defaultReturnValue(-1);
+    }
+
+    private PendingSyncQueue() {}
+
+    /**
+     * @param intents {@link SyncQueue#SYNC} or {@link SyncQueue#FULL}
+     */
+    public static void add(UUID id, int delay, int intents) {
+        long due = CoreModule.SCHEDULER.getTick() + delay;
+        long prev = PENDING.removeLong(id);
+        if (prev != -1) {
+            due = Math.max(due, prev >> 2);
+            intents |= (int) (prev & 3);
+        }
+        // re-adding moves the entry to the tail, so the queue is in request order, not due order
+        PENDING.put(id, due << 2 | (intents & 3));
+    }
+
+    public static int size() {
+        return PENDING.size();
+    }
+
+    /**
+     * Hands the due entries to {@link SyncQueue} in request order, skipping
+     * over those that are not due yet, until the budget runs out.
+     */
+    public static void process(MinecraftServer server) {
+        if (PENDING.isEmpty()) {
+            return;
+        }
+        long tick = CoreModule.SCHEDULER.getTick();
+        int budget = EverCommonConfig.syncBudget;
+        ObjectIterator<Object2LongMap.Entry<UUID>> itr = PENDING.object2LongEntrySet().fastIterator();
+        while (budget > 0 && itr.hasNext()) {
+            Object2LongMap.Entry<UUID> entry = itr.next();
+            long value = entry.getLongValue();
+            if (value >> 2 > tick) {
+                // delays differ, an entry that is due may still follow
+                continue;
+            }
+            itr.remove();
+            ServerPlayerEntity player = server.getPlayerList().getPlayerByUUID(entry.getKey());
+            if (player == null || player.hasDisconnected()) {
+                continue;
+            }
+            SyncQueue.add(player, (int) (value & 3));
+            --budget;
+        }
+    }
+
+    public static void clear() {
+        PENDING.clear();
+    }
+
+}
@@ -0,0 +1,71 @@
+package snownee.everpotion.network;
+
+import java.util.function.Supplier;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent.Context;
+import snownee.everpotion.cap.EverCapabilities;
+import snownee.everpotion.handler.EverHandler;
+import snownee.everpotion.metrics.Metrics;
+import snownee.kiwi.network.Packet;
+
+/**
+ * Low-rate drift check for the client prediction. The client compares the
+ * checksum with its own state at the same game time and asks for a full
+ * snapshot if they differ.
+ */
+public class SChecksumPacket extends Packet {
+
+    private final long time;
+    private final int checksum;
+
+    public SChecksumPacket(long time, int checksum) {
+        this.time = time;
+        this.checksum = checksum;
+    }
+
+    public SChecksumPacket(EverHandler handler, long time) {
+        this(time, handler.checksum(time));
+    }
+
+    public static class Handler extends PacketHandler<SChecksumPacket> {
+
+        @Override
+        public SChecksumPacket decode(PacketBuffer buf) {
+            return new SChecksumPacket(buf.readVarLong(), buf.readInt());
+        }
+
+        @Override
+        public void encode(SChecksumPacket pkt, PacketBuffer buf) {
+            int start = buf.writerIndex();
+            buf.writeVarLong(pkt.time);
+            buf.writeInt(pkt.checksum);
+            Metrics.CHECKSUM_PACKETS.inc();
+            Metrics.CHECKSUM_BYTES.add(buf.writerIndex() - start);
+        }
+
+        @Override
+        public void handle(SChecksumPacket pkt, Supplier<Context> ctx) {
+            ctx.get().enqueueWork(() -> {
+                Minecraft mc = Minecraft.getInstance();
+                if (mc.player == null) {
+                    return;
+                }
+                mc.player.getCapability(EverCapabilities.HANDLER).ifPresent(handler -> {
+                    handler.update();
+                    // skip if the client is behind, or an event moved the anchor past the time
+                    if (handler.version == -1 || mc.world.getGameTime() < pkt.time || handler.getAnchorTime() > pkt.time) {
+                        return;
+                    }
+                    if (handler.checksum(pkt.time) != pkt.checksum) {
+                        handler.version = -1;
+                        new CRequestSyncPacket().send();
+                    }
+                });
+            });
+            ctx.get().setPacketHandled(true);
+        }
+
+    }
+}
@@ -0,0 +1,59 @@
+package snownee.everpotion.network;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.google.common.collect.Lists;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent.Context;
+import snownee.everpotion.client.ClientHandler;
+import snownee.everpotion.crafting.CoreCatalog;
+import snownee.kiwi.network.Packet;
+
+/**
+ * Sends the {@link CoreCatalog} at login and after every datapack reload,
+ * each core in the compact form of {@link CoreDescriptor}.
+ */
+public class SCoreCatalogPacket extends Packet {
+
+    private final List<ItemStack> stacks;
+
+    public SCoreCatalogPacket(List<ItemStack> stacks) {
+        this.stacks = stacks;
+    }
+
+    public static class Handler extends PacketHandler<SCoreCatalogPacket> {
+
+        @Override
+        public SCoreCatalogPacket decode(PacketBuffer buf) {
+            int size = buf.readVarInt();
+            List<ItemStack> stacks = Lists.newArrayListWithCapacity(size);
+            for (int i = 0; i < size; i++) {
+                stacks.add(CoreDescriptor.read(buf).toStack());
+            }
+            return new SCoreCatalogPacket(stacks);
+        }
+
+        @Override
+        public void encode(SCoreCatalogPacket pkt, PacketBuffer buf) {
+            buf.writeVarInt(pkt.stacks.size());
+            for (ItemStack stack : pkt.stacks) {
+                CoreDescriptor.of(stack).write(buf);
+            }
+        }
+
+        @Override
+        public void handle(SCoreCatalogPacket pkt, Supplier<Context> ctx) {
+            ctx.get().enqueueWork(() -> {
+                if (CoreCatalog.setClient(pkt.stacks)) {
+                    ClientHandler.markSearchTreeDirty();
+                }
+            });
+            ctx.get().setPacketHandled(true);
+        }
+
+    }
+
+}
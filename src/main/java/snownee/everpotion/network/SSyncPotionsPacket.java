@@ -6,68 +6,278 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.network.PacketBuffer;
 import net.minecraftforge.fml.network.NetworkEvent.Context;
+import snownee.everpotion.EverCommonConfig;
 import snownee.everpotion.cap.EverCapabilities;
+import snownee.everpotion.client.gui.UseScreen;
 import snownee.everpotion.handler.EverHandler;
+import snownee.everpotion.metrics.Metrics;
 import snownee.kiwi.network.Packet;
 
+/**
+ * Carries either a full snapshot of a handler or a delta of the slots and
+ * scalars that changed since the previous packet. A delta is only applied
+ * when the client is still on {@link #baseVersion}, otherwise the client asks
+ * for a full snapshot with {@link CRequestSyncPacket}.
+ * <p>
+ * Progress is sent as the value at the handler's anchor time, so the client
+ * evaluates the same function of game time as the server and only needs an
+ * update when the state changes. Stacks and progress use the compact forms of
+ * {@link CoreDescriptor}, progress is scaled by the refill time of the server,
+ * which full snapshots also hand to the client config along with the slot
+ * limit.
+ */
 public class SSyncPotionsPacket extends Packet {
 
+    private static final int FULL = 1;
+    private static final int CANCEL = 2;
+
     private final ServerPlayerEntity player;
-    private final EverHandler handler;
+    private final boolean full;
+    private final boolean cancel;
+    private final int baseVersion;
+    private final int version;
+    private final int flags;
+    private final int slots;
+    private final int stackMask;
+    private final int progressMask;
+    private final CoreDescriptor[] stacks;
+    private final float[] progress;
+    private final int refillTime;
+    private final int maxSlots;
+    private final long anchorTime;
+    private final int chargeIndex;
+    private final float acceleration;
+    private final int drinkIndex;
+    private final int drinkTick;
 
-    public SSyncPotionsPacket(ServerPlayerEntity player) {
+    /**
+     * @param cancel also stop drinking and close the radial menu on the client
+     */
+    public SSyncPotionsPacket(ServerPlayerEntity player, EverHandler handler, boolean full, boolean cancel) {
         this.player = player;
-        this.handler = player.getCapability(EverCapabilities.HANDLER).orElse(null);
+        handler.update();
+        this.full = full;
+        this.cancel = cancel;
+        int size = handler.getCapacity();
+        if (full) {
+            flags = EverHandler.DIRTY_ALL;
+            stackMask = progressMask = (1 << size) - 1;
+            baseVersion = version = handler.version;
+        } else {
+            flags = handler.getDirtyFlags();
+            stackMask = handler.getDirtyStacks();
+            if ((flags & EverHandler.DIRTY_ANCHOR) != 0 && handler.chargeIndex != -1) {
+                progressMask = handler.getDirtyProgress() | 1 << handler.chargeIndex;
+            } else {
+                progressMask = handler.getDirtyProgress();
+            }
+            baseVersion = handler.version;
+            version = ++handler.version;
+        }
+        handler.clearDirty();
+        slots = handler.getSlots();
+        refillTime = EverCommonConfig.refillTime;
+        maxSlots = EverCommonConfig.maxSlots;
+        stacks = new CoreDescriptor[size];
+        progress = new float[size];
+        for (int i = 0; i < size; i++) {
+            if ((stackMask >> i & 1) != 0) {
+                stacks[i] = CoreDescriptor.of(handler.getStackInSlot(i));
+            }
+            if ((progressMask >> i & 1) != 0 && handler.getSpec(i) != null) {
+                int quantized = CoreDescriptor.quantizeProgress(handler.getAnchorProgress(i), refillTime);
+                progress[i] = CoreDescriptor.dequantizeProgress(quantized, refillTime);
+            }
+        }
+        anchorTime = handler.getAnchorTime();
+        chargeIndex = handler.chargeIndex;
+        acceleration = handler.getAnchorAcceleration();
+        drinkIndex = handler.drinkIndex;
+        drinkTick = handler.drinkTick;
     }
 
-    public SSyncPotionsPacket(EverHandler handler) {
+    private SSyncPotionsPacket(boolean full, boolean cancel, int baseVersion, int version, int flags, int slots, int stackMask, int progressMask, CoreDescriptor[] stacks, float[] progress, int refillTime, int maxSlots, long anchorTime, int chargeIndex, float acceleration, int drinkIndex, int drinkTick) {
         this.player = null;
-        this.handler = handler;
+        this.full = full;
+        this.cancel = cancel;
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.flags = flags;
+        this.slots = slots;
+        this.stackMask = stackMask;
+        this.progressMask = progressMask;
+        this.stacks = stacks;
+        this.progress = progress;
+        this.refillTime = refillTime;
+        this.maxSlots = maxSlots;
+        this.anchorTime = anchorTime;
+        this.chargeIndex = chargeIndex;
+        this.acceleration = acceleration;
+        this.drinkIndex = drinkIndex;
+        this.drinkTick = drinkTick;
     }
 
     @Override
     public void send() {
-        if (handler != null) {
-            send(player);
+        send(player);
+    }
+
+    /**
+     * Gives the server handler the progress the client is going to decode, so
+     * both sides predict from the same anchor. Call it with the handler the
+     * packet was built from, before sending.
+     */
+    public void snap(EverHandler handler) {
+        for (int i = 0; i < progress.length && i < handler.getCapacity(); i++) {
+            if ((progressMask >> i & 1) != 0 && handler.getSpec(i) != null) {
+                handler.setAnchorProgress(i, progress[i]);
+            }
+        }
+    }
+
+    private void apply(EverHandler handler) {
+        if ((flags & EverHandler.DIRTY_SLOTS) != 0) {
+            handler.setSlots(slots);
+        }
+        if (stackMask != 0) {
+            handler.ensureCapacity(stacks.length);
+        }
+        for (int i = 0; i < stacks.length; i++) {
+            if ((stackMask >> i & 1) != 0 && !stacks[i].matches(handler.getStackInSlot(i))) {
+                handler.setStackInSlot(i, stacks[i].toStack());
+            }
+        }
+        if ((flags & EverHandler.DIRTY_ANCHOR) != 0) {
+            handler.setAnchor(anchorTime, chargeIndex, acceleration, drinkIndex, drinkTick);
+        }
+        for (int i = 0; i < progress.length && i < handler.getCapacity(); i++) {
+            if ((progressMask >> i & 1) != 0 && handler.getSpec(i) != null) {
+                handler.setAnchorProgress(i, progress[i]);
+            }
         }
+        handler.clearDirty();
+        handler.version = version;
+        handler.update();
     }
 
     public static class Handler extends PacketHandler<SSyncPotionsPacket> {
 
         @Override
         public SSyncPotionsPacket decode(PacketBuffer buf) {
-            EverHandler handler = new EverHandler();
-            int slots = buf.readByte();
-            handler.setSlots(slots);
-            for (int i = 0; i < slots; i++) {
-                handler.setStackInSlot(i, buf.readItemStack());
-                float progress = buf.readFloat();
-                if (handler.caches[i] != null) {
-                    handler.caches[i].progress = progress;
+            int header = buf.readByte();
+            boolean full = (header & FULL) != 0;
+            boolean cancel = (header & CANCEL) != 0;
+            int version = buf.readVarInt();
+            int baseVersion = full ? version : buf.readVarInt();
+            int flags = buf.readByte();
+            int slots = (flags & EverHandler.DIRTY_SLOTS) != 0 ? buf.readByte() : 0;
+            int size = buf.readByte();
+            int stackMask = buf.readVarInt();
+            int progressMask = buf.readVarInt();
+            int refillTime = full || progressMask != 0 ? buf.readVarInt() : EverCommonConfig.refillTime;
+            int maxSlots = full ? buf.readByte() : EverCommonConfig.maxSlots;
+            CoreDescriptor[] stacks = new CoreDescriptor[size];
+            float[] progress = new float[size];
+            for (int i = 0; i < size; i++) {
+                if ((stackMask >> i & 1) != 0) {
+                    stacks[i] = CoreDescriptor.read(buf);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if ((progressMask >> i & 1) != 0) {
+                    progress[i] = CoreDescriptor.dequantizeProgress(buf.readUnsignedShort(), refillTime);
+                }
+            }
+            long anchorTime = 0;
+            int chargeIndex = -1;
+            float acceleration = 0;
+            int drinkIndex = -1;
+            int drinkTick = 0;
+            if ((flags & EverHandler.DIRTY_ANCHOR) != 0) {
+                anchorTime = buf.readVarLong();
+                chargeIndex = buf.readByte();
+                acceleration = buf.readFloat();
+                drinkIndex = buf.readByte();
+                if (drinkIndex != -1) {
+                    drinkTick = buf.readVarInt();
                 }
             }
-            handler.chargeIndex = buf.readByte();
-            handler.acceleration = buf.readFloat();
-            return new SSyncPotionsPacket(handler);
+            return new SSyncPotionsPacket(full, cancel, baseVersion, version, flags, slots, stackMask, progressMask, stacks, progress, refillTime, maxSlots, anchorTime, chargeIndex, acceleration, drinkIndex, drinkTick);
         }
 
         @Override
         public void encode(SSyncPotionsPacket pkt, PacketBuffer buf) {
-            int slots = pkt.handler.getSlots();
-            buf.writeByte(slots);
-            for (int i = 0; i < slots; i++) {
-                buf.writeItemStack(pkt.handler.getStackInSlot(i));
-                buf.writeFloat(pkt.handler.caches[i] == null ? 0 : pkt.handler.caches[i].progress);
-            }
-            buf.writeByte(pkt.handler.chargeIndex);
-            buf.writeFloat(pkt.handler.acceleration);
+            int start = buf.writerIndex();
+            buf.writeByte((pkt.full ? FULL : 0) | (pkt.cancel ? CANCEL : 0));
+            buf.writeVarInt(pkt.version);
+            if (!pkt.full) {
+                buf.writeVarInt(pkt.baseVersion);
+            }
+            buf.writeByte(pkt.flags);
+            if ((pkt.flags & EverHandler.DIRTY_SLOTS) != 0) {
+                buf.writeByte(pkt.slots);
+            }
+            buf.writeByte(pkt.stacks.length);
+            buf.writeVarInt(pkt.stackMask);
+            buf.writeVarInt(pkt.progressMask);
+            if (pkt.full || pkt.progressMask != 0) {
+                buf.writeVarInt(pkt.refillTime);
+            }
+            if (pkt.full) {
+                buf.writeByte(pkt.maxSlots);
+            }
+            for (int i = 0; i < pkt.stacks.length; i++) {
+                if ((pkt.stackMask >> i & 1) != 0) {
+                    pkt.stacks[i].write(buf);
+                }
+            }
+            for (int i = 0; i < pkt.progress.length; i++) {
+                if ((pkt.progressMask >> i & 1) != 0) {
+                    buf.writeShort(CoreDescriptor.quantizeProgress(pkt.progress[i], pkt.refillTime));
+                }
+            }
+            if ((pkt.flags & EverHandler.DIRTY_ANCHOR) != 0) {
+                buf.writeVarLong(pkt.anchorTime);
+                buf.writeByte(pkt.chargeIndex);
+                buf.writeFloat(pkt.acceleration);
+                buf.writeByte(pkt.drinkIndex);
+                if (pkt.drinkIndex != -1) {
+                    buf.writeVarInt(pkt.drinkTick);
+                }
+            }
+            if (pkt.full) {
+                Metrics.SYNC_FULL_PACKETS.inc();
+                Metrics.SYNC_FULL_BYTES.add(buf.writerIndex() - start);
+            } else {
+                Metrics.SYNC_DELTA_PACKETS.inc();
+                Metrics.SYNC_DELTA_BYTES.add(buf.writerIndex() - start);
+            }
         }
 
         @Override
         public void handle(SSyncPotionsPacket pkt, Supplier<Context> ctx) {
             ctx.get().enqueueWork(() -> {
-                Minecraft.getInstance().player.getCapability(EverCapabilities.HANDLER).ifPresent(handler -> {
-                    handler.copyFrom(pkt.handler);
+                Minecraft mc = Minecraft.getInstance();
+                if (mc.player == null) {
+                    return;
+                }
+                if (pkt.full && !mc.isIntegratedServerRunning()) {
+                    EverCommonConfig.applyServer(pkt.refillTime, pkt.maxSlots);
+                }
+                mc.player.getCapability(EverCapabilities.HANDLER).ifPresent(handler -> {
+                    if (pkt.cancel) {
+                        handler.stopDrinking();
+                        if (mc.currentScreen instanceof UseScreen) {
+                            mc.displayGuiScreen(null);
+                        }
+                    }
+                    if (pkt.full || handler.version == pkt.baseVersion) {
+                        pkt.apply(handler);
+                    } else if (handler.version != -1) {
+                        // missed a delta, wait for a full snapshot
+                        handler.version = -1;
+                        new CRequestSyncPacket().send();
+                    }
                 });
             });
             ctx.get().setPacketHandled(true);
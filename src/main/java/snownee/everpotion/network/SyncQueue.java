@@ -0,0 +1,58 @@
+package snownee.everpotion.network;
+
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMaps;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import snownee.everpotion.cap.EverCapabilities;
+import snownee.everpotion.handler.EverHandler;
+
+/**
+ * Collects the sync and cancel intents raised during a server tick and sends
+ * at most one {@link SSyncPotionsPacket} per player when the tick ends, so
+ * traffic is bounded by the player count rather than by the event rate.
+ */
+public final class SyncQueue {
+
+    public static final int SYNC = 1;
+    public static final int FULL = 2;
+    public static final int CANCEL = 4;
+
+    private static final Object2IntLinkedOpenHashMap<ServerPlayerEntity> PENDING = new Object2IntLinkedOpenHashMap<>();
+
+    private SyncQueue() {}
+
+    public static void add(ServerPlayerEntity player, int intents) {
+        PENDING.put(player, PENDING.getInt(player) | intents);
+    }
+
+    public static void flush() {
+        if (PENDING.isEmpty()) {
+            return;
+        }
+        for (Object2IntMap.Entry<ServerPlayerEntity> entry : Object2IntMaps.fastIterable(PENDING)) {
+            ServerPlayerEntity player = entry.getKey();
+            if (player.hasDisconnected()) {
+                continue;
+            }
+            EverHandler handler = player.getCapability(EverCapabilities.HANDLER).orElse(null);
+            if (handler == null) {
+                continue;
+            }
+            int intents = entry.getIntValue();
+            boolean full = (intents & FULL) != 0;
+            boolean cancel = (intents & CANCEL) != 0;
+            if (full || cancel || handler.isDirty()) {
+                SSyncPotionsPacket packet = new SSyncPotionsPacket(player, handler, full, cancel);
+                packet.snap(handler);
+                packet.send();
+            }
+        }
+        PENDING.clear();
+    }
+
+    public static void clear() {
+        PENDING.clear();
+    }
+
+}
@@ -2,7 +2,6 @@ package snownee.everpotion.plugin;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
@@ -10,7 +9,6 @@ import com.google.common.collect.ImmutableList;
 import mezz.jei.api.IModPlugin;
 import mezz.jei.api.JeiPlugin;
 import mezz.jei.api.constants.VanillaRecipeCategoryUid;
-import mezz.jei.api.ingredients.subtypes.ISubtypeInterpreter;
 import mezz.jei.api.registration.IRecipeRegistration;
 import mezz.jei.api.registration.ISubtypeRegistration;
 import mezz.jei.plugins.vanilla.anvil.AnvilRecipe;
@@ -21,6 +19,8 @@ import snownee.everpotion.CoreModule;
 import snownee.everpotion.EverPotion;
 import snownee.everpotion.crafting.CraftingModule;
 import snownee.everpotion.crafting.EverAnvilRecipe;
+import snownee.everpotion.item.CoreSpec;
+import snownee.everpotion.item.UnlockSlotItem;
 import snownee.kiwi.Kiwi;
 
 @JeiPlugin
@@ -35,9 +35,8 @@ public class JEIPlugin implements IModPlugin {
 
     @Override
     public void registerItemSubtypes(ISubtypeRegistration registration) {
-        ISubtypeInterpreter interpreter = stack -> Objects.toString(stack.getTag());
-        registration.registerSubtypeInterpreter(CoreModule.CORE, interpreter);
-        registration.registerSubtypeInterpreter(CoreModule.UNLOCK_SLOT, interpreter);
+        registration.registerSubtypeInterpreter(CoreModule.CORE, stack -> CoreSpec.of(stack).getSubtypeKey());
+        registration.registerSubtypeInterpreter(CoreModule.UNLOCK_SLOT, UnlockSlotItem::getSubtypeKey);
     }
 
     @Override